@@ -0,0 +1,89 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+/**
+ * Measures {@link CPFact#copyFrom} and
+ * {@link ConstantPropagation#meetInto(CPFact, CPFact)} on facts that map
+ * {@link #size} variables.
+ */
+@State(Scope.Thread)
+public class CPFactBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int size;
+
+    private ConstantPropagation cp;
+
+    private CPFact fact;
+
+    /**
+     * Fact over the same variables as {@link #fact}, where every other
+     * variable holds a different constant, so meeting the two
+     * turns half of the values into NAC.
+     */
+    private CPFact other;
+
+    @Setup
+    public void setUp() {
+        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        fact = new CPFact();
+        other = new CPFact();
+        for (int i = 0; i < size; ++i) {
+            Var var = new Var(null, "v" + i, PrimitiveType.INT, i);
+            fact.update(var, Value.makeConstant(i));
+            other.update(var, Value.makeConstant(i % 2 == 0 ? i : -i));
+        }
+    }
+
+    @Benchmark
+    public CPFact copyFrom() {
+        CPFact target = new CPFact();
+        target.copyFrom(fact);
+        return target;
+    }
+
+    @Benchmark
+    public CPFact meetIntoEmpty() {
+        CPFact target = new CPFact();
+        cp.meetInto(fact, target);
+        return target;
+    }
+
+    @Benchmark
+    public CPFact meetIntoConflicting() {
+        CPFact target = other.copy();
+        cp.meetInto(fact, target);
+        return target;
+    }
+}
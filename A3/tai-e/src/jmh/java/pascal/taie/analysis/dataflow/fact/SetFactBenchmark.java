@@ -0,0 +1,70 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link SetFact#union(SetFact)} on two sets of {@link #size}
+ * elements that share half of their elements.
+ */
+@State(Scope.Thread)
+public class SetFactBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int size;
+
+    private SetFact<Integer> fact;
+
+    private SetFact<Integer> other;
+
+    @Setup
+    public void setUp() {
+        fact = new SetFact<>();
+        other = new SetFact<>();
+        for (int i = 0; i < size; ++i) {
+            fact.add(i);
+            other.add(i + size / 2);
+        }
+    }
+
+    @Benchmark
+    public SetFact<Integer> union() {
+        SetFact<Integer> target = fact.copy();
+        target.union(other);
+        return target;
+    }
+
+    /**
+     * Unions a set into itself, i.e., nothing changes.
+     */
+    @Benchmark
+    public boolean unionNoChange() {
+        return fact.union(fact);
+    }
+}
@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.analysis;
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.dataflow.solver.SolverProfiler;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
@@ -39,7 +40,14 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
 
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        // the profile is reported when the JVM exits,
+        // by the profiler shared with other instances of this analysis
+        SolverProfiler profiler = SolverProfiler.shared(getId(), getOptions());
+        if (profiler != null) {
+            solver = Solver.makeProfilingSolver(this, profiler);
+        } else {
+            solver = Solver.makeSolver(this);
+        }
     }
 
     @Override
@@ -0,0 +1,119 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Solver that profiles the convergence of the underlying solver.
+ * For each CFG, it runs the solver of {@link #makeSolver} on an analysis
+ * that records the node transfers, and adds the records of the method
+ * to the {@link SolverProfiler}.
+ */
+class ProfilingSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    private final SolverProfiler profiler;
+
+    ProfilingSolver(DataflowAnalysis<Node, Fact> analysis, SolverProfiler profiler) {
+        super(analysis);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        Map<Node, SolverProfiler.NodeStats> nodeStats = Maps.newMap();
+        DataflowResult<Node, Fact> result = makeSolver(
+                new ProfilingAnalysis(nodeStats)).solve(cfg);
+        profiler.addMethod(cfg.getMethod(), nodeStats);
+        return result;
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        // Unused, solving is delegated in solve()
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        // Unused, solving is delegated in solve()
+    }
+
+    /**
+     * Delegates to the profiled analysis and records its node transfers.
+     */
+    private class ProfilingAnalysis implements DataflowAnalysis<Node, Fact> {
+
+        private final Map<Node, SolverProfiler.NodeStats> nodeStats;
+
+        private ProfilingAnalysis(Map<Node, SolverProfiler.NodeStats> nodeStats) {
+            this.nodeStats = nodeStats;
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public Fact newBoundaryFact(CFG<Node> cfg) {
+            return analysis.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public Fact newInitialFact() {
+            return analysis.newInitialFact();
+        }
+
+        @Override
+        public void meetInto(Fact fact, Fact target) {
+            analysis.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Node node, Fact in, Fact out) {
+            SolverProfiler.NodeStats stats = nodeStats.computeIfAbsent(
+                    node, n -> new SolverProfiler.NodeStats());
+            long start = System.nanoTime();
+            boolean changed = analysis.transferNode(node, in, out);
+            stats.record(System.nanoTime() - start, changed);
+            return changed;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Node> edge) {
+            return analysis.needTransferEdge(edge);
+        }
+
+        @Override
+        public Fact transferEdge(Edge<Node> edge, Fact nodeFact) {
+            return analysis.transferEdge(edge, nodeFact);
+        }
+    }
+}
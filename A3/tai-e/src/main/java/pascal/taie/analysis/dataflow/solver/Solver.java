@@ -49,6 +49,15 @@ public abstract class Solver<Node, Fact> {
         return new WorkListSolver<>(analysis);
     }
 
+    /**
+     * Static factory method to create a new solver for given analysis,
+     * which profiles the convergence of the solving by given profiler.
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeProfilingSolver(
+            DataflowAnalysis<Node, Fact> analysis, SolverProfiler profiler) {
+        return new ProfilingSolver<>(analysis, profiler);
+    }
+
     /**
      * Starts this solver on the given CFG.
      *
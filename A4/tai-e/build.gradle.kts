@@ -23,6 +23,12 @@ tasks.compileTestJava { options.encoding = "UTF-8" }
 tasks.test {
     useJUnit()
     maxHeapSize = "4G"
+    // World and Soot are JVM-wide singletons, thus test classes can only
+    // run in parallel in separate JVMs; each JVM loads the whole JDK
+    // class library, thus at most 4 JVMs are forked by default,
+    // override the number of JVMs by -PtestForks=<n>
+    maxParallelForks = (project.findProperty("testForks") as String?)?.toInt()
+        ?: (Runtime.getRuntime().availableProcessors() / 2).coerceIn(1, 4)
 }
 
 java {
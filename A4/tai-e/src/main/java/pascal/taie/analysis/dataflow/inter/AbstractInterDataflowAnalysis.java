@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.inter;
 import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverProfiler;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.ICFG;
@@ -121,8 +122,19 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
-        DataflowResult<Node, Fact> result = solver.solve();
+        SolverProfiler profiler = SolverProfiler.make(getId(), getOptions());
+        DataflowResult<Node, Fact> result;
+        if (profiler != null) {
+            ProfilingInterAnalysis<Method, Node, Fact> profiling =
+                    new ProfilingInterAnalysis<>(this, icfg);
+            solver = new InterSolver<>(profiling, icfg);
+            result = solver.solve();
+            profiling.addTo(profiler);
+            profiler.report();
+        } else {
+            solver = new InterSolver<>(this, icfg);
+            result = solver.solve();
+        }
         finish();
         return result;
     }
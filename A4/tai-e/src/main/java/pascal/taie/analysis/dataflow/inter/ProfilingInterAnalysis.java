@@ -0,0 +1,98 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.solver.SolverProfiler;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Delegates to an inter-procedural data-flow analysis and records
+ * its node transfers for {@link SolverProfiler}.
+ */
+class ProfilingInterAnalysis<Method, Node, Fact>
+        implements InterDataflowAnalysis<Node, Fact> {
+
+    private final InterDataflowAnalysis<Node, Fact> analysis;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final Map<Node, SolverProfiler.NodeStats> nodeStats = Maps.newMap();
+
+    ProfilingInterAnalysis(InterDataflowAnalysis<Node, Fact> analysis,
+                           ICFG<Method, Node> icfg) {
+        this.analysis = analysis;
+        this.icfg = icfg;
+    }
+
+    @Override
+    public boolean isForward() {
+        return analysis.isForward();
+    }
+
+    @Override
+    public Fact newBoundaryFact(Node boundary) {
+        return analysis.newBoundaryFact(boundary);
+    }
+
+    @Override
+    public Fact newInitialFact() {
+        return analysis.newInitialFact();
+    }
+
+    @Override
+    public void meetInto(Fact fact, Fact target) {
+        analysis.meetInto(fact, target);
+    }
+
+    @Override
+    public boolean transferNode(Node node, Fact in, Fact out) {
+        SolverProfiler.NodeStats stats = nodeStats.computeIfAbsent(
+                node, n -> new SolverProfiler.NodeStats());
+        long start = System.nanoTime();
+        boolean changed = analysis.transferNode(node, in, out);
+        stats.record(System.nanoTime() - start, changed);
+        return changed;
+    }
+
+    @Override
+    public Fact transferEdge(ICFGEdge<Node> edge, Fact out) {
+        return analysis.transferEdge(edge, out);
+    }
+
+    /**
+     * Adds the recorded transfers to given profiler, grouped by
+     * the methods containing the nodes.
+     */
+    void addTo(SolverProfiler profiler) {
+        Map<Method, Map<Node, SolverProfiler.NodeStats>> byMethod = Maps.newMap();
+        nodeStats.forEach((node, stats) -> byMethod.computeIfAbsent(
+                icfg.getContainingMethodOf(node), m -> Maps.newMap())
+                .put(node, stats));
+        byMethod.forEach(profiler::addMethod);
+    }
+}
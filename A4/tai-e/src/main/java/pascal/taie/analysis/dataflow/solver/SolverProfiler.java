@@ -0,0 +1,216 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Profiles the convergence of data-flow solvers. For each node, the
+ * profiler records how many times the node is transferred (visits),
+ * how many of the transfers change the out fact (changes), and the
+ * time taken by the transfers. The report lists the methods and nodes
+ * which cost most, which is useful to tune the work-list ordering
+ * and widening of the analyses.
+ * <p>
+ * The profiler is enabled by option "profile". The report contains the
+ * top "profile-top" (default 20) methods and nodes, and is written to
+ * the file given by option "profile-file" (default
+ * output/&lt;analysis-id&gt;-convergence.txt).
+ */
+public class SolverProfiler {
+
+    /**
+     * Statistics of the transfers of a node.
+     */
+    public static class NodeStats {
+
+        private long visits = 0;
+
+        private long changes = 0;
+
+        private long nanos = 0;
+
+        /**
+         * Records a transfer of the node.
+         *
+         * @param nanos   time taken by the transfer.
+         * @param changed whether the transfer changed the out fact.
+         */
+        public void record(long nanos, boolean changed) {
+            ++visits;
+            if (changed) {
+                ++changes;
+            }
+            this.nanos += nanos;
+        }
+    }
+
+    /**
+     * Shared profilers of the analyses which report at JVM exit,
+     * one per profile file.
+     */
+    private static final Map<Path, SolverProfiler> sharedProfilers =
+            new ConcurrentHashMap<>();
+
+    private final String analysisId;
+
+    private final int top;
+
+    private final Path file;
+
+    /**
+     * Method -> node -> statistics. Guarded by this profiler, as the
+     * solvers of different methods may run in parallel.
+     */
+    private final Map<Object, Map<Object, NodeStats>> stats = Maps.newMap();
+
+    private SolverProfiler(String analysisId, int top, Path file) {
+        this.analysisId = analysisId;
+        this.top = top;
+        this.file = file;
+    }
+
+    /**
+     * @return the profiler if it is enabled by the options, otherwise null.
+     */
+    @Nullable
+    public static SolverProfiler make(String analysisId, AnalysisOptions options) {
+        if (!options.getBooleanOrDefault("profile", false)) {
+            return null;
+        }
+        int top = options.get("profile-top") instanceof Integer i ? i : 20;
+        String file = options.getString("profile-file");
+        return new SolverProfiler(analysisId, top, Path.of(file != null ? file :
+                "output/" + analysisId + "-convergence.txt"));
+    }
+
+    /**
+     * Method analyses have no point where all methods are finished,
+     * thus their profiles are reported when the JVM exits. All instances
+     * of such analyses which write the same profile file share one
+     * profiler, so that only one shutdown hook is registered per file.
+     *
+     * @return the shared profiler if it is enabled by the options,
+     * otherwise null.
+     */
+    @Nullable
+    public static SolverProfiler shared(String analysisId, AnalysisOptions options) {
+        SolverProfiler profiler = make(analysisId, options);
+        if (profiler == null) {
+            return null;
+        }
+        return sharedProfilers.computeIfAbsent(profiler.file.toAbsolutePath(), file -> {
+            Runtime.getRuntime().addShutdownHook(new Thread(profiler::report,
+                    "convergence-profile-" + profiler.analysisId));
+            return profiler;
+        });
+    }
+
+    /**
+     * Adds the statistics of the nodes in given method.
+     */
+    public synchronized void addMethod(Object method, Map<?, NodeStats> nodeStats) {
+        Map<Object, NodeStats> methodStats = stats.computeIfAbsent(
+                method, m -> Maps.newMap());
+        nodeStats.forEach((node, s) -> {
+            NodeStats merged = methodStats.computeIfAbsent(node, n -> new NodeStats());
+            merged.visits += s.visits;
+            merged.changes += s.changes;
+            merged.nanos += s.nanos;
+        });
+    }
+
+    /**
+     * Writes the report to the profile file.
+     */
+    public synchronized void report() {
+        record MethodRow(Object method, int nodes, long visits,
+                         long changes, long maxVisits, long nanos) {
+        }
+        record NodeRow(Object method, Object node, NodeStats stats) {
+        }
+        List<MethodRow> methods = new ArrayList<>();
+        List<NodeRow> nodes = new ArrayList<>();
+        stats.forEach((method, nodeStats) -> {
+            long visits = 0, changes = 0, maxVisits = 0, nanos = 0;
+            for (Map.Entry<Object, NodeStats> e : nodeStats.entrySet()) {
+                NodeStats s = e.getValue();
+                visits += s.visits;
+                changes += s.changes;
+                maxVisits = Math.max(maxVisits, s.visits);
+                nanos += s.nanos;
+                nodes.add(new NodeRow(method, e.getKey(), s));
+            }
+            methods.add(new MethodRow(method, nodeStats.size(),
+                    visits, changes, maxVisits, nanos));
+        });
+        methods.sort(Comparator.comparingLong(MethodRow::nanos).reversed());
+        nodes.sort(Comparator.comparingLong((NodeRow r) -> r.stats().visits)
+                .thenComparingLong(r -> r.stats().changes)
+                .reversed());
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                out.printf("Convergence profile of %s: %d methods, %d nodes, " +
+                                "%d visits, %d changes, %d ms%n", analysisId,
+                        methods.size(), nodes.size(),
+                        methods.stream().mapToLong(MethodRow::visits).sum(),
+                        methods.stream().mapToLong(MethodRow::changes).sum(),
+                        methods.stream().mapToLong(MethodRow::nanos).sum() / 1_000_000);
+                out.println();
+                out.println("Top methods by transfer time:");
+                out.println("time-us\tnodes\tvisits\tchanges\tmax-visits\tmethod");
+                methods.stream().limit(top).forEach(r ->
+                        out.printf("%d\t%d\t%d\t%d\t%d\t%s%n", r.nanos() / 1000,
+                                r.nodes(), r.visits(), r.changes(),
+                                r.maxVisits(), r.method()));
+                out.println();
+                out.println("Top nodes by visits:");
+                out.println("visits\tchanges\ttime-us\tmethod\tnode");
+                nodes.stream().limit(top).forEach(r ->
+                        out.printf("%d\t%d\t%d\t%s\t%s%n", r.stats().visits,
+                                r.stats().changes, r.stats().nanos / 1000,
+                                r.method(), r.node()));
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write convergence profile to " + file, e);
+        }
+    }
+}
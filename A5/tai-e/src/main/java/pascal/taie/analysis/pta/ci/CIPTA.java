@@ -42,9 +42,12 @@ public class CIPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         HeapModel heapModel = new AllocationSiteBasedModel(getOptions());
-        Solver solver = new Solver(heapModel);
+        Solver solver = new Solver(getOptions(), heapModel);
         solver.solve();
         CIPTAResult result = solver.getResult();
+        if (getOptions().getBooleanOrDefault("precompute-projections", false)) {
+            result.precomputeProjections();
+        }
         new ResultProcessor(getOptions()).process(result);
         return result;
     }
@@ -26,20 +26,22 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.graph.callgraph.CallGraph;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.ProjectionCache;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
-import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Pair;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
 import java.util.Collection;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 class CIPTAResult implements PointerAnalysisResult {
 
@@ -49,17 +51,27 @@ class CIPTAResult implements PointerAnalysisResult {
 
     private final CallGraph<Invoke, JMethod> callGraph;
 
+    /**
+     * Default maximum number of cached points-to sets of field expressions.
+     */
+    static final int DEFAULT_CACHE_CAPACITY = 1 << 16;
+
     /**
      * Points-to sets of field expressions, e.g., v.f.
      */
-    private final Map<Pair<Var, JField>, Set<Obj>> fieldPointsTo = Maps.newMap();
+    private final ProjectionCache<Pair<Var, JField>, Set<Obj>> fieldPointsTo;
 
     private Set<Obj> objects;
 
+    /**
+     * @param cacheCapacity the maximum number of cached points-to sets
+     *                      of field expressions.
+     */
     CIPTAResult(PointerFlowGraph pointerFlowGraph,
-                CallGraph<Invoke, JMethod> callGraph) {
+                CallGraph<Invoke, JMethod> callGraph, int cacheCapacity) {
         this.pointerFlowGraph = pointerFlowGraph;
         this.callGraph = callGraph;
+        this.fieldPointsTo = new ProjectionCache<>(cacheCapacity);
     }
 
     @Override
@@ -94,15 +106,55 @@ class CIPTAResult implements PointerAnalysisResult {
         if (field.isStatic()) {
             logger.warn("{} is not instance field", field);
         }
-        return fieldPointsTo.computeIfAbsent(new Pair<>(base, field), p -> {
-            Set<Obj> pts = Sets.newHybridSet();
-            getPointsToSet(base).forEach(o -> {
-                InstanceField fieldPtr = pointerFlowGraph
-                        .getInstanceField(o, field);
+        return fieldPointsTo.get(new Pair<>(base, field),
+                p -> project(getPointsToSet(base), field));
+    }
+
+    /**
+     * @return the union of points-to sets of field of given base objects.
+     */
+    private Set<Obj> project(Set<Obj> bases, JField field) {
+        Set<Obj> pts = Sets.newHybridSet();
+        bases.forEach(o -> {
+            InstanceField fieldPtr = pointerFlowGraph
+                    .findInstanceField(o, field);
+            if (fieldPtr != null) {
                 pts.addAll(fieldPtr.getPointsToSet().getObjects());
-            });
-            return pts;
+            }
         });
+        // the cached sets are shared by all queries
+        return Collections.unmodifiableSet(pts);
+    }
+
+    /**
+     * Computes the points-to sets of all instance field expressions
+     * (i.e., v.f) in the loads and stores of the program in parallel,
+     * so that later queries on them hit the cache. They are computed
+     * only if they all fit in the cache, as otherwise most of them
+     * would be evicted before they are queried.
+     * This method must be called after the solver finishes.
+     */
+    void precomputeProjections() {
+        List<Pair<Var, JField>> fieldAccesses = pointerFlowGraph.getPointers()
+                .stream()
+                .filter(VarPtr.class::isInstance)
+                .map(p -> ((VarPtr) p).getVar())
+                .flatMap(base -> Stream.concat(base.getLoadFields().stream(),
+                                base.getStoreFields().stream())
+                        .map(stmt -> new Pair<>(base, stmt.getFieldRef().resolve())))
+                .distinct()
+                .toList();
+        if (fieldAccesses.size() > fieldPointsTo.getCapacity()) {
+            logger.warn("Skipped precomputing field points-to sets of {} field" +
+                            " expressions, which exceed the cache capacity {}" +
+                            " (option \"projection-cache-size\")",
+                    fieldAccesses.size(), fieldPointsTo.getCapacity());
+            return;
+        }
+        fieldAccesses.parallelStream().forEach(
+                p -> getPointsToSet(p.first(), p.second()));
+        logger.info("Precomputed field points-to sets of {} field expressions, {}",
+                fieldAccesses.size(), fieldPointsTo);
     }
 
     @Override
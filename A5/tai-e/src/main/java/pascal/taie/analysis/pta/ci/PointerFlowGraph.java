@@ -69,6 +69,12 @@ class PointerFlowGraph {
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from an edge (source, target) to the type filter on it.
+     * Edges without filters are absent in this map.
+     */
+    private final TwoKeyMap<Pointer, Pointer, TypeFilter> filters = Maps.newTwoKeyMap();
+
     /**
      * Returns all pointers in this PFG.
      */
@@ -110,6 +116,17 @@ class PointerFlowGraph {
             });
     }
 
+    /**
+     * @return the existing InstanceField node for the given object and
+     * instance field, or null if the node is absent.
+     * Unlike {@link #getInstanceField(Obj, JField)}, this method never
+     * creates new nodes, thus it can be called concurrently once
+     * the PFG is no longer modified.
+     */
+    InstanceField findInstanceField(Obj base, JField field) {
+        return instanceFields.get(base, field);
+    }
+
     /**
      * @return the corresponding ArrayIndex node for the given array object.
      */
@@ -131,10 +148,43 @@ class PointerFlowGraph {
         return successors.put(source, target);
     }
 
+    /**
+     * Adds an edge (source -> target) with a type filter to this PFG.
+     * Only the objects passing the filter should flow along the edge.
+     *
+     * @param filter the type filter on the edge, null for no filter.
+     * @return true if this PFG changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addEdge(Pointer source, Pointer target, TypeFilter filter) {
+        if (successors.put(source, target)) {
+            if (filter != null) {
+                filters.put(source, target, filter);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the type filter on edge (source -> target),
+     * or null if the edge has no filter.
+     */
+    TypeFilter getFilter(Pointer source, Pointer target) {
+        return filters.get(source, target);
+    }
+
     /**
      * @return successors of given pointer in the PFG.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
         return successors.get(pointer);
     }
+
+    /**
+     * @return the number of edges in the PFG.
+     */
+    int getNumberOfEdges() {
+        return successors.size();
+    }
 }
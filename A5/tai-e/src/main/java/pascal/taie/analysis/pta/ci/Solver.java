@@ -29,11 +29,15 @@ import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.SolverMetrics;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Cast;
 import pascal.taie.ir.stmt.Copy;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
@@ -43,9 +47,11 @@ import pascal.taie.ir.stmt.StmtVisitor;
 import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
-import pascal.taie.util.AnalysisException;
+import pascal.taie.language.type.ReferenceType;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
 
 import java.util.List;
 
@@ -53,6 +59,8 @@ class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    private final AnalysisOptions options;
+
     private final HeapModel heapModel;
 
     private DefaultCallGraph callGraph;
@@ -61,11 +69,16 @@ class Solver {
 
     private WorkList workList;
 
+    private TypeFilter.Index typeFilters;
+
     private StmtProcessor stmtProcessor;
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    private SolverMetrics metrics;
+
+    Solver(AnalysisOptions options, HeapModel heapModel) {
+        this.options = options;
         this.heapModel = heapModel;
     }
 
@@ -75,14 +88,22 @@ class Solver {
     void solve() {
         initialize();
         analyze();
+        metrics.onFinish();
+        logger.info("Type filters dropped {} object(s) on PFG edges",
+                typeFilters.getDropped());
     }
 
     /**
      * Initializes pointer analysis.
      */
     private void initialize() {
-        workList = new WorkList();
+        metrics = new SolverMetrics("cipta", options);
+        workList = new WorkList(metrics);
+        typeFilters = new TypeFilter.Index(World.get().getTypeSystem(),
+                World.get().getClassHierarchy());
         pointerFlowGraph = new PointerFlowGraph();
+        metrics.setGauge(SolverMetrics.Gauge.WORK_LIST_LENGTH, workList::size);
+        metrics.setGauge(SolverMetrics.Gauge.PFG_EDGES, pointerFlowGraph::getNumberOfEdges);
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
@@ -96,29 +117,147 @@ class Solver {
      * Processes new reachable method.
      */
     private void addReachable(JMethod method) {
-        // TODO - finish me
+        if (callGraph.addReachableMethod(method)) {
+            method.getIR().forEach(stmt -> stmt.accept(stmtProcessor));
+        }
     }
 
     /**
      * Processes statements in new reachable methods.
      */
     private class StmtProcessor implements StmtVisitor<Void> {
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+
+        @Override
+        public Void visit(New stmt) {
+            workList.addEntry(pointerFlowGraph.getVarPtr(stmt.getLValue()),
+                    new PointsToSet(heapModel.getObj(stmt)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()),
+                    pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(Cast stmt) {
+            if (stmt.getRValue().getCastType() instanceof ReferenceType) {
+                addFilteredPFGEdge(
+                        pointerFlowGraph.getVarPtr(stmt.getRValue().getValue()),
+                        pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(pointerFlowGraph.getStaticField(field),
+                        pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()),
+                        pointerFlowGraph.getStaticField(field));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                addCallEdge(new Edge<>(CallKind.STATIC, stmt, callee));
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+        addPFGEdge(source, target, null);
+    }
+
+    /**
+     * Adds an edge "source -> target" to the PFG, which only lets
+     * the objects assignable to the type of target variable flow along it.
+     * This is useful for the edges whose target type may be narrower
+     * than the source type, e.g., the edges of casts.
+     */
+    private void addFilteredPFGEdge(Pointer source, VarPtr target) {
+        addPFGEdge(source, target, typeFilters.getFilter(target.getVar().getType()));
+    }
+
+    /**
+     * Adds an edge "source -> target" with given type filter (null for
+     * no filter) to the PFG, and propagates pt(source) along the new edge.
+     */
+    private void addPFGEdge(Pointer source, Pointer target, TypeFilter filter) {
+        if (pointerFlowGraph.addEdge(source, target, filter)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                PointsToSet flowed = filterPointsToSet(source, target, pts);
+                if (!flowed.isEmpty()) {
+                    workList.addEntry(target, flowed);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the objects in pointsToSet which can flow along
+     * PFG edge "source -> target", i.e., the ones passing the type filter
+     * of the edge (if any).
+     */
+    private PointsToSet filterPointsToSet(
+            Pointer source, Pointer target, PointsToSet pointsToSet) {
+        TypeFilter filter = pointerFlowGraph.getFilter(source, target);
+        return filter != null ? filter.filter(pointsToSet) : pointsToSet;
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
      */
     private void analyze() {
-        // TODO - finish me
+        WorkList.Entry entry;
+        while ((entry = workList.pollEntry()) != null) {
+            Pointer pointer = entry.pointer();
+            PointsToSet delta = propagate(pointer, entry.pointsToSet());
+            if (!delta.isEmpty() && pointer instanceof VarPtr varPtr) {
+                Var var = varPtr.getVar();
+                for (Obj obj : delta) {
+                    for (StoreField store : var.getStoreFields()) {
+                        JField field = store.getFieldRef().resolve();
+                        addPFGEdge(pointerFlowGraph.getVarPtr(store.getRValue()),
+                                pointerFlowGraph.getInstanceField(obj, field));
+                    }
+                    for (LoadField load : var.getLoadFields()) {
+                        JField field = load.getFieldRef().resolve();
+                        addPFGEdge(pointerFlowGraph.getInstanceField(obj, field),
+                                pointerFlowGraph.getVarPtr(load.getLValue()));
+                    }
+                    for (StoreArray store : var.getStoreArrays()) {
+                        addPFGEdge(pointerFlowGraph.getVarPtr(store.getRValue()),
+                                pointerFlowGraph.getArrayIndex(obj));
+                    }
+                    for (LoadArray load : var.getLoadArrays()) {
+                        addPFGEdge(pointerFlowGraph.getArrayIndex(obj),
+                                pointerFlowGraph.getVarPtr(load.getLValue()));
+                    }
+                    processCall(var, obj);
+                }
+            }
+        }
     }
 
     /**
@@ -126,8 +265,23 @@ class Solver {
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        PointsToSet pts = pointer.getPointsToSet();
+        PointsToSet delta = new PointsToSet();
+        for (Obj obj : pointsToSet) {
+            if (pts.addObject(obj)) {
+                delta.addObject(obj);
+            }
+        }
+        if (!delta.isEmpty()) {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                // objects flow along each edge through its type filter
+                PointsToSet flowed = filterPointsToSet(pointer, succ, delta);
+                if (!flowed.isEmpty()) {
+                    workList.addEntry(succ, flowed);
+                }
+            }
+        }
+        return delta;
     }
 
     /**
@@ -137,7 +291,43 @@ class Solver {
      * @param recv a new discovered object pointed by the variable.
      */
     private void processCall(Var var, Obj recv) {
-        // TODO - finish me
+        for (Invoke callSite : var.getInvokes()) {
+            JMethod callee = resolveCallee(recv, callSite);
+            if (callee == null) {
+                continue;
+            }
+            IR ir = callee.getIR();
+            if (ir.getThis() != null) {
+                workList.addEntry(pointerFlowGraph.getVarPtr(ir.getThis()),
+                        new PointsToSet(recv));
+            }
+            addCallEdge(new Edge<>(CallGraphs.getCallKind(callSite), callSite, callee));
+        }
+    }
+
+    /**
+     * Adds a call edge to the call graph, and processes the new reachable
+     * callee and the PFG edges of parameter passing and return values.
+     */
+    private void addCallEdge(Edge<Invoke, JMethod> edge) {
+        if (callGraph.addEdge(edge)) {
+            JMethod callee = edge.getCallee();
+            addReachable(callee);
+            Invoke callSite = edge.getCallSite();
+            IR ir = callee.getIR();
+            InvokeExp invokeExp = callSite.getInvokeExp();
+            for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+                addPFGEdge(pointerFlowGraph.getVarPtr(invokeExp.getArg(i)),
+                        pointerFlowGraph.getVarPtr(ir.getParam(i)));
+            }
+            Var result = callSite.getResult();
+            if (result != null) {
+                VarPtr resultPtr = pointerFlowGraph.getVarPtr(result);
+                for (Var ret : ir.getReturnVars()) {
+                    addPFGEdge(pointerFlowGraph.getVarPtr(ret), resultPtr);
+                }
+            }
+        }
     }
 
     /**
@@ -149,11 +339,16 @@ class Solver {
      * @return the resolved callee.
      */
     private JMethod resolveCallee(Obj recv, Invoke callSite) {
+        metrics.onCallResolution();
         Type type = recv != null ? recv.getType() : null;
         return CallGraphs.resolveCallee(type, callSite);
     }
 
     CIPTAResult getResult() {
-        return new CIPTAResult(pointerFlowGraph, callGraph);
+        // the capacity of projection cache can be given by
+        // option "projection-cache-size"
+        int capacity = options.get("projection-cache-size") instanceof Integer size ?
+                size : CIPTAResult.DEFAULT_CACHE_CAPACITY;
+        return new CIPTAResult(pointerFlowGraph, callGraph, capacity);
     }
 }
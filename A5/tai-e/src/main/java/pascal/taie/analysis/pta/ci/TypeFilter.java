@@ -0,0 +1,180 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Type filter on PFG edges, which accepts only the objects assignable
+ * to the given type.
+ * Each type is given an id. For a class type, the ids of all its subtypes
+ * (i.e., its subclasses and implementors) are precomputed into a bitset
+ * from the class hierarchy when the filter is made, thus filtering an object
+ * of class type is a single bit test. The assignability of other object
+ * types (e.g., arrays to interfaces) is checked by {@link TypeSystem}
+ * once per type, and cached in the same bitset.
+ */
+class TypeFilter implements Predicate<Obj> {
+
+    private final Type type;
+
+    private final Index index;
+
+    /**
+     * Whether the class subtypes of {@link #type} are precomputed
+     * in {@link #assignable}.
+     */
+    private final boolean precomputed;
+
+    /**
+     * Ids of the non-class types whose assignability has been checked.
+     */
+    private final BitSet checked = new BitSet();
+
+    /**
+     * Ids of the types which are assignable to {@link #type}.
+     */
+    private final BitSet assignable = new BitSet();
+
+    /**
+     * Number of objects dropped by this filter.
+     */
+    private long dropped = 0;
+
+    private TypeFilter(Type type, Index index) {
+        this.type = type;
+        this.index = index;
+        JClass jclass = type instanceof ClassType classType ?
+                classType.getJClass() : null;
+        if (jclass != null) {
+            index.hierarchy.getAllSubclassesOf(jclass, true)
+                    .forEach(c -> assignable.set(index.getId(c.getType())));
+            precomputed = true;
+        } else {
+            precomputed = false;
+        }
+    }
+
+    @Override
+    public boolean test(Obj obj) {
+        Type objType = obj.getType();
+        int id = index.getId(objType);
+        if (precomputed && objType instanceof ClassType) {
+            // all class subtypes have been given ids and bits
+            return assignable.get(id);
+        }
+        if (!checked.get(id)) {
+            checked.set(id);
+            if (index.typeSystem.isSubtype(type, objType)) {
+                assignable.set(id);
+            }
+        }
+        return assignable.get(id);
+    }
+
+    /**
+     * @return the objects in given points-to set which pass this filter.
+     * If all objects pass the filter, given points-to set itself is returned.
+     */
+    PointsToSet filter(PointsToSet pts) {
+        PointsToSet result = new PointsToSet();
+        for (Obj obj : pts) {
+            if (test(obj)) {
+                result.addObject(obj);
+            } else {
+                ++dropped;
+            }
+        }
+        return result.size() == pts.size() ? pts : result;
+    }
+
+    /**
+     * @return the number of objects dropped by this filter.
+     */
+    long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public String toString() {
+        return "TypeFilter{" + type + "}";
+    }
+
+    /**
+     * Provides the type filters and the type ids shared by them.
+     */
+    static class Index {
+
+        private final TypeSystem typeSystem;
+
+        private final ClassHierarchy hierarchy;
+
+        private final Type object;
+
+        private final Map<Type, Integer> ids = Maps.newMap();
+
+        private final Map<Type, TypeFilter> filters = Maps.newMap();
+
+        Index(TypeSystem typeSystem, ClassHierarchy hierarchy) {
+            this.typeSystem = typeSystem;
+            this.hierarchy = hierarchy;
+            this.object = typeSystem.getClassType(ClassNames.OBJECT);
+        }
+
+        /**
+         * @return the type filter for given type, or null if the filter
+         * is unnecessary, i.e., every object is assignable to the type.
+         */
+        TypeFilter getFilter(Type type) {
+            if (type == null || type.equals(object)) {
+                return null;
+            }
+            return filters.computeIfAbsent(type, t -> new TypeFilter(t, this));
+        }
+
+        private int getId(Type type) {
+            return ids.computeIfAbsent(type, t -> ids.size());
+        }
+
+        /**
+         * @return the total number of objects dropped by the filters.
+         */
+        long getDropped() {
+            return filters.values()
+                    .stream()
+                    .mapToLong(TypeFilter::getDropped)
+                    .sum();
+        }
+    }
+}
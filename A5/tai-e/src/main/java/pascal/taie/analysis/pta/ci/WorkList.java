@@ -22,6 +22,8 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.analysis.pta.SolverMetrics;
+
 import java.util.ArrayDeque;
 import java.util.Queue;
 
@@ -32,6 +34,16 @@ class WorkList {
 
     private final Queue<Entry> entries = new ArrayDeque<>();
 
+    private final SolverMetrics metrics;
+
+    /**
+     * @param metrics the metrics to be notified of the retrieved entries,
+     *                which may be disabled but must not be null.
+     */
+    WorkList(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Adds an entry to the work list.
      */
@@ -44,7 +56,18 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Entry entry = entries.poll();
+        if (entry != null && metrics.isEnabled()) {
+            metrics.onEntryProcessed(entry.pointer().getPointsToSet().size());
+        }
+        return entry;
+    }
+
+    /**
+     * @return the number of entries in this work list.
+     */
+    int size() {
+        return entries.size();
     }
 
     /**
@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("application")
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 repositories {
@@ -19,10 +20,36 @@ application {
 
 tasks.compileJava { options.encoding = "UTF-8" }
 tasks.compileTestJava { options.encoding = "UTF-8" }
+tasks.named<JavaCompile>("compileJmhJava") { options.encoding = "UTF-8" }
 
 tasks.test {
     useJUnit()
     maxHeapSize = "4G"
+    // World and Soot are JVM-wide singletons, thus test classes can only
+    // run in parallel in separate JVMs; each JVM loads the whole JDK
+    // class library, thus at most 4 JVMs are forked by default,
+    // override the number of JVMs by -PtestForks=<n>
+    maxParallelForks = (project.findProperty("testForks") as String?)?.toInt()
+        ?: (Runtime.getRuntime().availableProcessors() / 2).coerceIn(1, 4)
+}
+
+// End-to-end benchmarks on synthetic programs, e.g.,
+// gradlew benchmark -PbenchArgs="sizes=100,1000 cs=ci,2-obj"
+tasks.register<JavaExec>("benchmark") {
+    description = "Runs analyses on synthetic programs and appends measurements to CSV."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("pascal.taie.analysis.bench.BenchmarkHarness")
+    maxHeapSize = "4G"
+    args = (project.findProperty("benchArgs") as String?)?.split(" ") ?: listOf()
+}
+
+// Micro-benchmarks live in src/jmh/java; run them with "gradlew jmh".
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    jvmArgs.set(listOf("-Xmx4G"))
+    resultFormat.set("CSV")
 }
 
 java {
@@ -0,0 +1,96 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Measures construction and hashing of {@link ListContext}.
+ * {@link #size} is the number of contexts per invocation and
+ * {@link #length} is the number of elements in each context,
+ * i.e., the k of k-limiting context sensitivity.
+ */
+@State(Scope.Thread)
+public class ListContextBenchmark {
+
+    @Param({"64", "1024", "16384"})
+    public int size;
+
+    @Param({"1", "2", "3"})
+    public int length;
+
+    /**
+     * Elements of each context.
+     */
+    private Object[][] elements;
+
+    private Context[] contexts;
+
+    @Setup
+    public void setUp() {
+        elements = new Object[size][length];
+        contexts = new Context[size];
+        for (int i = 0; i < size; ++i) {
+            for (int j = 0; j < length; ++j) {
+                elements[i][j] = "e" + (i + j);
+            }
+            contexts[i] = ListContext.make(elements[i]);
+        }
+    }
+
+    @Benchmark
+    public void make(Blackhole bh) {
+        for (Object[] elems : elements) {
+            bh.consume(ListContext.make(elems));
+        }
+    }
+
+    @Benchmark
+    public void hashCodes(Blackhole bh) {
+        for (Context context : contexts) {
+            bh.consume(context.hashCode());
+        }
+    }
+
+    /**
+     * Inserts all contexts into a hash set, which exercises both
+     * hashCode() and equals() as context-keyed maps do.
+     */
+    @Benchmark
+    public Set<Context> insertIntoHashSet() {
+        Set<Context> set = new HashSet<>();
+        for (Context context : contexts) {
+            set.add(context);
+        }
+        return set;
+    }
+}
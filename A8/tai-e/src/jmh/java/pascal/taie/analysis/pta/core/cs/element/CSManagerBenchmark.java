@@ -0,0 +1,91 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+/**
+ * Measures {@link CSManager#getCSVar(Context, Var)} for variables
+ * that already have a CSVar and for variables that do not.
+ */
+@State(Scope.Thread)
+public class CSManagerBenchmark {
+
+    @Param({"64", "1024", "16384"})
+    public int size;
+
+    private Var[] vars;
+
+    private Context context;
+
+    /**
+     * CS manager in which every variable in {@link #vars} has been
+     * associated with {@link #context}.
+     */
+    private CSManager populated;
+
+    @Setup
+    public void setUp() {
+        vars = new Var[size];
+        for (int i = 0; i < size; ++i) {
+            vars[i] = new Var(null, "v" + i, PrimitiveType.INT, i);
+        }
+        context = ListContext.make("ctx");
+        populated = new MapBasedCSManager();
+        for (Var var : vars) {
+            populated.getCSVar(context, var);
+        }
+    }
+
+    /**
+     * Looks up CSVars that already exist.
+     */
+    @Benchmark
+    public void getExisting(Blackhole bh) {
+        for (Var var : vars) {
+            bh.consume(populated.getCSVar(context, var));
+        }
+    }
+
+    /**
+     * Creates the CSVars of all variables in a fresh CS manager.
+     */
+    @Benchmark
+    public CSManager getNew() {
+        CSManager csManager = new MapBasedCSManager();
+        for (Var var : vars) {
+            csManager.getCSVar(context, var);
+        }
+        return csManager;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+/**
+ * Measures the throughput of {@link WorkList}: adding {@link #size}
+ * entries and then draining them.
+ */
+@State(Scope.Thread)
+public class WorkListBenchmark {
+
+    @Param({"64", "1024", "16384"})
+    public int size;
+
+    private CSVar[] pointers;
+
+    private PointsToSet[] pointsToSets;
+
+    @Setup
+    public void setUp() {
+        CSManager csManager = new MapBasedCSManager();
+        pointers = new CSVar[size];
+        pointsToSets = new PointsToSet[size];
+        for (int i = 0; i < size; ++i) {
+            pointers[i] = csManager.getCSVar(ListContext.make(),
+                    new Var(null, "v" + i, PrimitiveType.INT, i));
+            pointsToSets[i] = PointsToSetFactory.make(csManager.getCSObj(
+                    ListContext.make(),
+                    new MockObj("BenchmarkObj", i, PrimitiveType.INT)));
+        }
+    }
+
+    @Benchmark
+    public void addAndPoll(Blackhole bh) {
+        WorkList workList = new WorkList();
+        for (int i = 0; i < size; ++i) {
+            workList.addEntry(pointers[i], pointsToSets[i]);
+        }
+        while (!workList.isEmpty()) {
+            bh.consume(workList.pollEntry());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.type.TypeSystem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures loading a taint config from its YAML file against loading it
+ * from the compiled config of {@link TaintConfigCache}. The config consists
+ * of the entries of the test config, whose methods are present in the
+ * analyzed program, plus {@link #absent} entries of methods which are
+ * absent, as in the large configs which cover many libraries.
+ */
+@State(Scope.Thread)
+public class TaintConfigCacheBenchmark {
+
+    private static final String CLASS_PATH = "src/test/resources/pta/taint";
+
+    private static final Path TEST_CONFIG = Path.of(CLASS_PATH, "taint-config.yml");
+
+    private static final Path DIR = Path.of("build", "jmh-taint-config");
+
+    @Param({"0", "1000", "10000"})
+    public int absent;
+
+    private String config;
+
+    private Path cacheDir;
+
+    private ClassHierarchy hierarchy;
+
+    private TypeSystem typeSystem;
+
+    @Setup
+    public void setUp() throws IOException {
+        Main.buildWorld("-pp", "-cp", CLASS_PATH, "-m", "SimpleTaint");
+        hierarchy = World.get().getClassHierarchy();
+        typeSystem = World.get().getTypeSystem();
+        Files.createDirectories(DIR);
+        Path path = DIR.resolve("taint-config-" + absent + ".yml");
+        Files.write(path, makeConfig());
+        config = path.toString();
+        cacheDir = DIR.resolve("cache");
+        // compiles the config, so that the benchmark only loads it
+        TaintConfigCache.readConfig(config, cacheDir, hierarchy, typeSystem);
+    }
+
+    /**
+     * @return lines of the test config, each section of which is
+     * followed by the entries of absent methods.
+     */
+    private List<String> makeConfig() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(TEST_CONFIG)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (!line.startsWith(" ") && !lines.isEmpty()) {
+                addAbsentEntries(lines, lines.get(lastSection(lines)));
+            }
+            lines.add(line);
+        }
+        addAbsentEntries(lines, lines.get(lastSection(lines)));
+        return lines;
+    }
+
+    private static int lastSection(List<String> lines) {
+        for (int i = lines.size() - 1; i >= 0; --i) {
+            if (!lines.get(i).startsWith(" ")) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No section in " + TEST_CONFIG);
+    }
+
+    private void addAbsentEntries(List<String> lines, String section) {
+        for (int i = 0; i < absent; ++i) {
+            String method = "\"<absent.Lib" + i + ": java.lang.String m(java.lang.String)>\"";
+            String entry;
+            if (section.equals("sources:")) {
+                entry = ", type: \"java.lang.String\" }";
+            } else if (section.equals("transfers:")) {
+                entry = ", from: 0, to: result, type: \"java.lang.String\" }";
+            } else { // sinks and sanitizers
+                entry = ", index: 0 }";
+            }
+            lines.add("  - { method: " + method + entry);
+        }
+    }
+
+    /**
+     * Parses the YAML config and resolves all its entries.
+     */
+    @Benchmark
+    public TaintConfig readYaml() {
+        return TaintConfig.readConfig(config, hierarchy, typeSystem);
+    }
+
+    /**
+     * Checks the key of the compiled config and loads it.
+     */
+    @Benchmark
+    public TaintConfig readCompiled() {
+        return TaintConfigCache.readConfig(config, cacheDir, hierarchy, typeSystem);
+    }
+}
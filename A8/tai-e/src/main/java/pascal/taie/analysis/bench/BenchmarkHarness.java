@@ -0,0 +1,179 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.bench;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs context-sensitive pointer analysis (with taint analysis) on
+ * {@link SyntheticProgram}s under each given context-sensitivity variant,
+ * and appends the wall time, peak heap and fixpoint iterations of every
+ * run to a CSV file, so that the numbers can be tracked across changes.
+ * The iterations are the work-list entries processed by the solver
+ * (see {@link CSPTA#ITERATIONS}), or -1 if the solver did not record them.
+ * <p>
+ * Arguments are of form key=value, all of which are optional:
+ * <ul>
+ *     <li>shapes: comma-separated {@link SyntheticProgram.Shape}s, default all</li>
+ *     <li>sizes: comma-separated program sizes, default 10,100,1000</li>
+ *     <li>cs: comma-separated context-sensitivity variants,
+ *     default ci,1-call,2-call,1-obj,2-obj,1-type,2-type</li>
+ *     <li>dir: directory of the generated programs, default build/bench</li>
+ *     <li>out: the CSV file, default build/bench/results.csv</li>
+ * </ul>
+ */
+public final class BenchmarkHarness {
+
+    private static final Logger logger = LogManager.getLogger(BenchmarkHarness.class);
+
+    private static final String HEADER =
+            "timestamp,shape,size,cs,time_ms,peak_heap_mb,iterations";
+
+    private BenchmarkHarness() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] splits = arg.split("=", 2);
+            if (splits.length != 2) {
+                throw new IllegalArgumentException("Illegal argument: " + arg +
+                        ", expected key=value");
+            }
+            options.put(splits[0], splits[1]);
+        }
+        List<SyntheticProgram.Shape> shapes = options.containsKey("shapes") ?
+                split(options.get("shapes")).stream()
+                        .map(s -> SyntheticProgram.Shape.valueOf(s.toUpperCase()))
+                        .toList() :
+                List.of(SyntheticProgram.Shape.values());
+        List<Integer> sizes = split(options.getOrDefault("sizes", "10,100,1000"))
+                .stream()
+                .map(Integer::parseInt)
+                .toList();
+        List<String> variants = split(options.getOrDefault("cs",
+                "ci,1-call,2-call,1-obj,2-obj,1-type,2-type"));
+        Path dir = Path.of(options.getOrDefault("dir", "build/bench"));
+        Path out = Path.of(options.getOrDefault("out", "build/bench/results.csv"));
+        run(shapes, sizes, variants, dir, out);
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::strip)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+
+    private static void run(List<SyntheticProgram.Shape> shapes, List<Integer> sizes,
+                            List<String> variants, Path dir, Path out) {
+        try {
+            Files.createDirectories(out.toAbsolutePath().getParent());
+            boolean exists = Files.exists(out);
+            try (PrintStream csv = new PrintStream(Files.newOutputStream(out,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                if (!exists) {
+                    csv.println(HEADER);
+                }
+                String timestamp = Instant.now().toString();
+                for (SyntheticProgram.Shape shape : shapes) {
+                    for (int size : sizes) {
+                        Path programDir = dir.resolve(
+                                shape.name().toLowerCase() + "-" + size);
+                        SyntheticProgram.write(shape, size, programDir);
+                        for (String cs : variants) {
+                            Measurement m = measure(programDir, cs);
+                            csv.printf("%s,%s,%d,%s,%d,%d,%d%n", timestamp,
+                                    shape.name().toLowerCase(), size, cs,
+                                    m.timeMillis(), m.peakHeapMB(), m.iterations());
+                            csv.flush();
+                            logger.info("{} (size {}) with {}: {}",
+                                    shape, size, cs, m);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write benchmark results to " + out, e);
+        }
+    }
+
+    /**
+     * Analyzes the synthetic program in programDir with given
+     * context-sensitivity variant. The wall time includes building
+     * the world, as every run of Main does.
+     */
+    private static Measurement measure(Path programDir, String cs) {
+        String ptaArgs = String.join(";",
+                "cs:" + cs,
+                "only-app:true",
+                "implicit-entries:false",
+                "taint-config:" + programDir.resolve(SyntheticProgram.TAINT_CONFIG));
+        String[] args = {
+                "-pp",
+                "-cp", programDir.toString(),
+                "-m", SyntheticProgram.MAIN_CLASS,
+                "-a", CSPTA.ID + "=" + ptaArgs,
+        };
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans()
+                .stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        Main.main(args);
+        long timeMillis = (System.nanoTime() - start) / 1_000_000;
+        // the sum of per-pool peaks is an upper bound of the peak heap usage
+        long peakHeap = heapPools.stream()
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        long iterations = result.getResult(CSPTA.ITERATIONS, -1L);
+        return new Measurement(timeMillis, peakHeap >> 20, iterations);
+    }
+
+    private record Measurement(long timeMillis, long peakHeapMB, long iterations) {
+    }
+}
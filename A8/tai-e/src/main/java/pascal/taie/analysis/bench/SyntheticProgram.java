@@ -0,0 +1,260 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.bench;
+
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates synthetic Java programs of configurable size and shape
+ * for benchmarking the analyses end to end.
+ * <p>
+ * Each generated program consists of Java source files with main class
+ * {@link #MAIN_CLASS}, a class {@code SourceSink} that provides taint
+ * sources and sinks, and a taint configuration {@link #TAINT_CONFIG}
+ * for them, so that any program can be analyzed with taint analysis.
+ */
+final class SyntheticProgram {
+
+    static final String MAIN_CLASS = "BenchMain";
+
+    static final String TAINT_CONFIG = "taint-config.yml";
+
+    /**
+     * Shapes of synthetic programs. The size of a program is given by
+     * the number of the repeated elements of its shape.
+     */
+    enum Shape {
+
+        /**
+         * A chain of size instance methods that pass an object along,
+         * called from several call sites.
+         */
+        CALL_CHAIN,
+
+        /**
+         * Size container objects that store and load boxed objects
+         * through fields and arrays.
+         */
+        CONTAINERS,
+
+        /**
+         * A virtual call site that dispatches to size implementations
+         * of an interface.
+         */
+        DISPATCH,
+
+        /**
+         * A chain of size methods that propagate a tainted string
+         * from a source to a sink via taint transfers.
+         */
+        TAINT_CHAIN
+    }
+
+    private SyntheticProgram() {
+    }
+
+    /**
+     * Writes the synthetic program of given shape and size to dir.
+     */
+    static void write(Shape shape, int size, Path dir) {
+        try {
+            Files.createDirectories(dir);
+            String main = switch (shape) {
+                case CALL_CHAIN -> writeCallChain(size, dir);
+                case CONTAINERS -> writeContainers(size, dir);
+                case DISPATCH -> writeDispatch(size, dir);
+                case TAINT_CHAIN -> writeTaintChain(size, dir);
+            };
+            write(dir, MAIN_CLASS, "class " + MAIN_CLASS + " {\n\n" +
+                    "    public static void main(String[] args) {\n" +
+                    main +
+                    "    }\n}\n");
+            write(dir, "SourceSink", """
+                    class SourceSink {
+
+                        static String source() {
+                            return new String();
+                        }
+
+                        static void sink(String s) {
+                        }
+                    }
+                    """);
+            Files.writeString(dir.resolve(TAINT_CONFIG), """
+                    sources:
+                      - { method: "<SourceSink: java.lang.String source()>", type: "java.lang.String" }
+
+                    sinks:
+                      - { method: "<SourceSink: void sink(java.lang.String)>", index: 0 }
+
+                    transfers:
+                      - { method: "<java.lang.String: java.lang.String concat(java.lang.String)>", from: base, to: result, type: "java.lang.String" }
+                      - { method: "<java.lang.String: java.lang.String concat(java.lang.String)>", from: 0, to: result, type: "java.lang.String" }
+                    """);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write synthetic program to " + dir, e);
+        }
+    }
+
+    /**
+     * @return body of main method.
+     */
+    private static String writeCallChain(int size, Path dir) throws IOException {
+        StringBuilder chain = new StringBuilder("class Chain {\n");
+        for (int i = 0; i < size; ++i) {
+            chain.append("\n    Object m").append(i).append("(Object o) {\n");
+            if (i < size - 1) {
+                chain.append("        return m").append(i + 1).append("(o);\n");
+            } else {
+                chain.append("        return o;\n");
+            }
+            chain.append("    }\n");
+        }
+        chain.append("}\n");
+        write(dir, "Chain", chain.toString());
+        StringBuilder main = new StringBuilder();
+        for (int i = 0; i < 4; ++i) {
+            main.append("        Object o").append(i)
+                    .append(" = new Chain().m0(new Object());\n");
+        }
+        return main.toString();
+    }
+
+    private static String writeContainers(int size, Path dir) throws IOException {
+        write(dir, "Box", """
+                class Box {
+
+                    private Object f;
+
+                    Box(Object f) {
+                        this.f = f;
+                    }
+
+                    Object get() {
+                        return f;
+                    }
+
+                    void set(Object f) {
+                        this.f = f;
+                    }
+                }
+                """);
+        write(dir, "Vec", """
+                class Vec {
+
+                    private Object[] elems = new Object[4];
+
+                    private int size;
+
+                    void add(Object o) {
+                        if (size == elems.length) {
+                            Object[] a = new Object[size * 2];
+                            for (int i = 0; i < size; ++i) {
+                                a[i] = elems[i];
+                            }
+                            elems = a;
+                        }
+                        elems[size++] = o;
+                    }
+
+                    Object get(int i) {
+                        return elems[i];
+                    }
+                }
+                """);
+        StringBuilder fill = new StringBuilder("class Fill {\n");
+        StringBuilder main = new StringBuilder();
+        for (int i = 0; i < size; ++i) {
+            fill.append("\n    static Object fill").append(i).append("() {\n")
+                    .append("        Vec v = new Vec();\n")
+                    .append("        v.add(new Box(new Object()));\n")
+                    .append("        v.add(new Box(new Box(v)));\n")
+                    .append("        Box b = (Box) v.get(0);\n")
+                    .append("        b.set(v.get(1));\n")
+                    .append("        return b.get();\n")
+                    .append("    }\n");
+            main.append("        Object o").append(i)
+                    .append(" = Fill.fill").append(i).append("();\n");
+        }
+        fill.append("}\n");
+        write(dir, "Fill", fill.toString());
+        return main.toString();
+    }
+
+    private static String writeDispatch(int size, Path dir) throws IOException {
+        write(dir, "Op", """
+                interface Op {
+
+                    Object apply(Object o);
+                }
+                """);
+        StringBuilder main = new StringBuilder();
+        main.append("        Op[] ops = new Op[").append(size).append("];\n");
+        for (int i = 0; i < size; ++i) {
+            write(dir, "Op" + i, "class Op" + i + " implements Op {\n\n" +
+                    "    public Object apply(Object o) {\n" +
+                    "        return new Object[]{ o };\n" +
+                    "    }\n}\n");
+            main.append("        ops[").append(i).append("] = new Op")
+                    .append(i).append("();\n");
+        }
+        main.append("        Object o = new Object();\n")
+                .append("        for (Op op : ops) {\n")
+                .append("            o = op.apply(o);\n")
+                .append("        }\n");
+        return main.toString();
+    }
+
+    private static String writeTaintChain(int size, Path dir) throws IOException {
+        StringBuilder chain = new StringBuilder("class TaintChain {\n");
+        for (int i = 0; i < size; ++i) {
+            chain.append("\n    static String t").append(i).append("(String s) {\n");
+            if (i < size - 1) {
+                chain.append("        return t").append(i + 1)
+                        .append("(s.concat(\"").append(i).append("\"));\n");
+            } else {
+                chain.append("        return s;\n");
+            }
+            chain.append("    }\n");
+        }
+        chain.append("}\n");
+        write(dir, "TaintChain", chain.toString());
+        return """
+                        String s1 = SourceSink.source();
+                        SourceSink.sink(TaintChain.t0(s1));
+                        String s2 = SourceSink.source();
+                        SourceSink.sink(TaintChain.t0("safe").concat(s2));
+                        SourceSink.sink(TaintChain.t0("safe"));
+                """;
+    }
+
+    private static void write(Path dir, String className, String content)
+            throws IOException {
+        Files.writeString(dir.resolve(className + ".java"), content);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JField;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Pointer analysis result which keeps the context-insensitive projections,
+ * i.e., the points-to sets of variables and field expressions (v.f)
+ * with contexts removed, in bounded and thread-safe caches.
+ * The projections are unmodifiable, as they are shared by all queries.
+ * <p>
+ * The projections are computed from the context-sensitive points-to sets,
+ * thus this result must be queried after pointer analysis finishes.
+ */
+public class CachedPointerAnalysisResult extends PointerAnalysisResultImpl {
+
+    private static final Logger logger = LogManager.getLogger(CachedPointerAnalysisResult.class);
+
+    /**
+     * Default maximum number of cached projections of each kind.
+     */
+    public static final int DEFAULT_CACHE_CAPACITY = 1 << 16;
+
+    private final CSManager csManager;
+
+    private final ProjectionCache<Var, Set<Obj>> varPointsTo;
+
+    private final ProjectionCache<Pair<Var, JField>, Set<Obj>> fieldPointsTo;
+
+    /**
+     * Read-only index of instance field pointers, which is built on demand
+     * so that the projections never create new pointers in csManager.
+     */
+    private volatile TwoKeyMap<CSObj, JField, InstanceField> instanceFields;
+
+    public CachedPointerAnalysisResult(
+            CSManager csManager, CallGraph<CSCallSite, CSMethod> csCallGraph,
+            int cacheCapacity) {
+        super(csManager, csCallGraph);
+        this.csManager = csManager;
+        this.varPointsTo = new ProjectionCache<>(cacheCapacity);
+        this.fieldPointsTo = new ProjectionCache<>(cacheCapacity);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        return varPointsTo.get(var, this::project);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        if (field.isStatic()) {
+            logger.warn("{} is not instance field", field);
+        }
+        return fieldPointsTo.get(new Pair<>(base, field),
+                p -> project(base, field));
+    }
+
+    /**
+     * @return the union of points-to sets of all context-sensitive
+     * variables of var, with contexts removed.
+     */
+    private Set<Obj> project(Var var) {
+        Set<Obj> pts = Sets.newHybridSet();
+        csManager.getCSVarsOf(var).forEach(csVar ->
+                csVar.getPointsToSet().forEach(o -> pts.add(o.getObject())));
+        return Collections.unmodifiableSet(pts);
+    }
+
+    /**
+     * @return the union of points-to sets of base.field in all contexts,
+     * with contexts removed.
+     */
+    private Set<Obj> project(Var base, JField field) {
+        TwoKeyMap<CSObj, JField, InstanceField> index = getInstanceFieldIndex();
+        Set<Obj> pts = Sets.newHybridSet();
+        csManager.getCSVarsOf(base).forEach(csVar ->
+                csVar.getPointsToSet().forEach(o -> {
+                    InstanceField fieldPtr = index.get(o, field);
+                    if (fieldPtr != null) {
+                        fieldPtr.getPointsToSet().forEach(
+                                p -> pts.add(p.getObject()));
+                    }
+                }));
+        return Collections.unmodifiableSet(pts);
+    }
+
+    private TwoKeyMap<CSObj, JField, InstanceField> getInstanceFieldIndex() {
+        TwoKeyMap<CSObj, JField, InstanceField> index = instanceFields;
+        if (index == null) {
+            synchronized (this) {
+                index = instanceFields;
+                if (index == null) {
+                    index = Maps.newTwoKeyMap();
+                    for (InstanceField fieldPtr : csManager.getInstanceFields()) {
+                        index.put(fieldPtr.getBase(), fieldPtr.getField(), fieldPtr);
+                    }
+                    instanceFields = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Computes the projections of all variables, and of all instance
+     * field expressions in the loads and stores of the program,
+     * in parallel, so that later queries on them hit the caches.
+     * The projections of each kind are computed only if they all fit
+     * in the cache, as otherwise most of them would be evicted
+     * before they are queried.
+     */
+    public void precomputeProjections() {
+        List<Var> vars = List.copyOf(csManager.getVars());
+        if (fitsCache(vars.size(), varPointsTo, "variables")) {
+            vars.parallelStream().forEach(this::getPointsToSet);
+        }
+        List<Pair<Var, JField>> fieldAccesses = vars.stream()
+                .flatMap(var -> Stream.concat(var.getLoadFields().stream(),
+                                var.getStoreFields().stream())
+                        .map(stmt -> new Pair<>(var, stmt.getFieldRef().resolve())))
+                .distinct()
+                .toList();
+        if (fitsCache(fieldAccesses.size(), fieldPointsTo, "field expressions")) {
+            fieldAccesses.parallelStream().forEach(
+                    p -> getPointsToSet(p.first(), p.second()));
+        }
+        logCacheStatistics();
+    }
+
+    private static boolean fitsCache(int n, ProjectionCache<?, ?> cache,
+                                     String desc) {
+        if (n <= cache.getCapacity()) {
+            logger.info("Precomputing projections of {} {}", n, desc);
+            return true;
+        }
+        logger.warn("Skipped precomputing projections of {} {}, which exceed" +
+                        " the cache capacity {} (option \"projection-cache-size\")",
+                n, desc, cache.getCapacity());
+        return false;
+    }
+
+    /**
+     * Logs the statistics of the projection caches.
+     */
+    public void logCacheStatistics() {
+        logger.info("Var points-to {}", varPointsTo);
+        logger.info("Field points-to {}", fieldPointsTo);
+    }
+}
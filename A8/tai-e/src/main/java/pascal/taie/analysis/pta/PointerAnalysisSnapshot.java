@@ -0,0 +1,628 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary snapshot of the points-to sets and the call graph in
+ * {@link PointerAnalysisResult}. A snapshot is written after pointer
+ * analysis (by option "save-snapshot", or as the binary format of
+ * {@link pascal.taie.analysis.pta.plugin.PointsToSetDumper}), and then
+ * reloaded via memory mapping to query or compare the results of
+ * a previous run without re-solving.
+ * <p>
+ * The elements of pointer analysis (e.g., {@link pascal.taie.ir.exp.Var}
+ * and {@link pascal.taie.language.classes.JMethod}) belong to the
+ * {@link pascal.taie.World} which creates them, thus a snapshot identifies
+ * each element by its name (i.e., {@code toString()}), and its queries
+ * accept and return names. Hence, a snapshot cannot stand in for
+ * {@link PointerAnalysisResult} in the analyses which query the result
+ * by IR elements.
+ * <p>
+ * The points-to set of each pointer is stored as the sorted ids of its
+ * objects, each of which is encoded as the difference from the previous
+ * id in a variable-length integer, and it is decoded lazily from the
+ * mapped file. The points-to sets are written as they are visited,
+ * and the pointer index and the objects follow them, thus writing
+ * a snapshot does not hold the encoded sets in memory.
+ * The file is mapped in chunks of {@link MappedFile#CHUNK_SIZE} bytes and
+ * all positions are longs, thus a snapshot may be larger than 2 GB.
+ * <p>
+ * Binary format (all integers are big-endian except the variable-length
+ * ones, and strings are written as the length followed by the UTF-8 bytes):
+ * <pre>
+ * magic, version,
+ * pointers:   (kind, name, size, (delta of object id (varint))*)*
+ * objects:    count, (name)*
+ * methods:    count, (name)*
+ * entries:    count, (method id)*
+ * call sites: count, (name, container method id)*
+ * edges:      count, (call site id, callee method id, call kind)*
+ * index:      count, (position of pointer (long))*
+ * trailer:    position of objects (long), position of index (long)
+ * </pre>
+ * where the id of an object is the order of its first occurrence
+ * in the points-to sets.
+ */
+public class PointerAnalysisSnapshot {
+
+    private static final Logger logger = LogManager.getLogger(PointerAnalysisSnapshot.class);
+
+    private static final int MAGIC = 0x50544153; // "PTAS"
+
+    private static final int VERSION = 3;
+
+    private static final int TRAILER_SIZE = 2 * Long.BYTES;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Kinds of pointers.
+     */
+    public static final byte VAR = 0, STATIC_FIELD = 1, INSTANCE_FIELD = 2, ARRAY_INDEX = 3;
+
+    /**
+     * Mapped snapshot file.
+     */
+    private final MappedFile file;
+
+    private final String[] objects;
+
+    private final int nPointers;
+
+    /**
+     * Position of the positions of pointers in the file.
+     */
+    private final long indexPosition;
+
+    private final String[] methods;
+
+    private final int[] entries;
+
+    private final String[] callSites;
+
+    private final int[] containers;
+
+    private final int[] edgeCallSites;
+
+    private final int[] edgeCallees;
+
+    /**
+     * Map from the name of a pointer to its id, built on first lookup.
+     */
+    private Map<String, Integer> pointerIds;
+
+    private PointerAnalysisSnapshot(MappedFile file) {
+        this.file = file;
+        if (file.size() < 2 * Integer.BYTES + TRAILER_SIZE ||
+                file.readInt() != MAGIC || file.readInt() != VERSION) {
+            throw new AnalysisException("Invalid pointer analysis snapshot");
+        }
+        long trailer = file.size() - TRAILER_SIZE;
+        file.seek(file.getLong(trailer));
+        objects = file.readStrings();
+        methods = file.readStrings();
+        entries = file.readInts();
+        int nCallSites = file.readInt();
+        callSites = new String[nCallSites];
+        containers = new int[nCallSites];
+        for (int i = 0; i < nCallSites; ++i) {
+            callSites[i] = file.readString();
+            containers[i] = file.readInt();
+        }
+        int nEdges = file.readInt();
+        edgeCallSites = new int[nEdges];
+        edgeCallees = new int[nEdges];
+        for (int i = 0; i < nEdges; ++i) {
+            edgeCallSites[i] = file.readInt();
+            edgeCallees[i] = file.readInt();
+            file.readByte(); // call kind, which is not used by queries yet
+        }
+        file.seek(file.getLong(trailer + Long.BYTES));
+        nPointers = file.readInt();
+        indexPosition = file.position();
+    }
+
+    /**
+     * Writes a snapshot of given result to file.
+     *
+     * @throws AnalysisException if failed to write the file
+     */
+    public static void write(PointerAnalysisResult result, Path path) {
+        try (OutputStream out = new BufferedOutputStream(
+                Files.newOutputStream(path), BUFFER_SIZE)) {
+            write(result, List.of(result.getCSVars(), result.getStaticFields(),
+                    result.getInstanceFields(), result.getArrayIndexes()), out);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write pointer analysis snapshot " + path, e);
+        }
+        logger.info("Wrote pointer analysis snapshot to {}", path);
+    }
+
+    /**
+     * Writes a snapshot of given result to out, whose pointers are written
+     * in given order, which determines the ids of pointers and objects.
+     *
+     * @param pointers the pointers of result in four groups, i.e.,
+     *                 variables, static fields, instance fields,
+     *                 and array indexes, whose kinds are {@link #VAR},
+     *                 {@link #STATIC_FIELD}, {@link #INSTANCE_FIELD},
+     *                 and {@link #ARRAY_INDEX}, respectively.
+     */
+    public static void write(PointerAnalysisResult result,
+                             List<? extends Collection<? extends Pointer>> pointers,
+                             OutputStream out) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(out);
+        DataOutputStream data = new DataOutputStream(counter);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        // pointers, the positions of which are kept for the index
+        Map<CSObj, Integer> objIds = Maps.newMap();
+        List<CSObj> objs = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        for (byte kind = VAR; kind <= ARRAY_INDEX; ++kind) {
+            for (Pointer pointer : pointers.get(kind)) {
+                positions.add(counter.getCount());
+                data.writeByte(kind);
+                writeString(data, pointer.toString());
+                int[] ids = new int[pointer.getPointsToSet().size()];
+                int i = 0;
+                for (CSObj obj : pointer.getPointsToSet()) {
+                    Integer id = objIds.get(obj);
+                    if (id == null) {
+                        id = objs.size();
+                        objIds.put(obj, id);
+                        objs.add(obj);
+                    }
+                    ids[i++] = id;
+                }
+                Arrays.sort(ids);
+                data.writeInt(ids.length);
+                int prev = -1;
+                for (int id : ids) {
+                    writeVarint(data, id - prev);
+                    prev = id;
+                }
+            }
+        }
+        // objects, including the ones which are not pointed to
+        long objectsPosition = counter.getCount();
+        for (CSObj obj : result.getCSObjects()) {
+            if (!objIds.containsKey(obj)) {
+                objIds.put(obj, objs.size());
+                objs.add(obj);
+            }
+        }
+        data.writeInt(objs.size());
+        for (CSObj obj : objs) {
+            writeString(data, obj.toString());
+        }
+        // call graph
+        CallGraph<CSCallSite, CSMethod> callGraph = result.getCSCallGraph();
+        Map<CSMethod, Integer> methodIds = Maps.newMap();
+        List<CSMethod> csMethods = callGraph.reachableMethods().toList();
+        data.writeInt(csMethods.size());
+        for (CSMethod csMethod : csMethods) {
+            methodIds.put(csMethod, methodIds.size());
+            writeString(data, csMethod.toString());
+        }
+        List<CSMethod> entryMethods = callGraph.entryMethods().toList();
+        data.writeInt(entryMethods.size());
+        for (CSMethod entry : entryMethods) {
+            data.writeInt(methodIds.get(entry));
+        }
+        Map<CSCallSite, Integer> callSiteIds = Maps.newMap();
+        List<CSCallSite> csCallSites = csMethods.stream()
+                .flatMap(callGraph::callSitesIn)
+                .toList();
+        data.writeInt(csCallSites.size());
+        for (CSCallSite csCallSite : csCallSites) {
+            callSiteIds.put(csCallSite, callSiteIds.size());
+            writeString(data, csCallSite.toString());
+            data.writeInt(methodIds.get(callGraph.getContainerOf(csCallSite)));
+        }
+        List<Edge<CSCallSite, CSMethod>> edges = callGraph.edges().toList();
+        data.writeInt(edges.size());
+        for (Edge<CSCallSite, CSMethod> edge : edges) {
+            data.writeInt(callSiteIds.get(edge.getCallSite()));
+            data.writeInt(methodIds.get(edge.getCallee()));
+            data.writeByte(edge.getKind().ordinal());
+        }
+        // index and trailer
+        long indexPosition = counter.getCount();
+        data.writeInt(positions.size());
+        for (long position : positions) {
+            data.writeLong(position);
+        }
+        data.writeLong(objectsPosition);
+        data.writeLong(indexPosition);
+        data.flush();
+    }
+
+    /**
+     * Loads a snapshot from file via memory mapping.
+     *
+     * @throws AnalysisException if failed to read the file,
+     *                           or the file is not a valid snapshot.
+     */
+    public static PointerAnalysisSnapshot load(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel is closed
+            PointerAnalysisSnapshot snapshot =
+                    new PointerAnalysisSnapshot(new MappedFile(channel));
+            logger.info("Loaded pointer analysis snapshot from {}", path);
+            return snapshot;
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to load pointer analysis snapshot " + path, e);
+        }
+    }
+
+    /**
+     * @return the number of pointers in this snapshot.
+     */
+    public int getNumberOfPointers() {
+        return nPointers;
+    }
+
+    /**
+     * @return the position of the pointer of given id in the file.
+     */
+    private long getPointerPosition(int id) {
+        return file.getLong(indexPosition + (long) id * Long.BYTES);
+    }
+
+    /**
+     * @return the name of the pointer of given id.
+     */
+    public String getPointer(int id) {
+        return file.getString(getPointerPosition(id) + 1);
+    }
+
+    /**
+     * @return the kind of the pointer of given id, e.g., {@link #VAR}.
+     */
+    public byte getPointerKind(int id) {
+        return file.getByte(getPointerPosition(id));
+    }
+
+    /**
+     * @return the id of the pointer of given name, or -1 if absent.
+     */
+    public synchronized int getPointerId(String pointer) {
+        if (pointerIds == null) {
+            pointerIds = Maps.newMap(nPointers);
+            for (int i = 0; i < nPointers; ++i) {
+                pointerIds.put(getPointer(i), i);
+            }
+        }
+        return pointerIds.getOrDefault(pointer, -1);
+    }
+
+    /**
+     * @return the sorted ids of the objects pointed by the pointer of
+     * given id. The points-to set is decoded from the mapped file on each call.
+     */
+    public int[] getPointsToSet(int id) {
+        long pos = getPointerPosition(id) + 1;
+        pos += Integer.BYTES + file.getInt(pos); // skips the name
+        int[] ids = new int[file.getInt(pos)];
+        pos += Integer.BYTES;
+        int prev = -1;
+        for (int i = 0; i < ids.length; ++i) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = file.getByte(pos++);
+                delta |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            prev += delta;
+            ids[i] = prev;
+        }
+        return ids;
+    }
+
+    /**
+     * @return names of the objects pointed by given pointer,
+     * or empty list if the pointer is absent.
+     */
+    public List<String> getPointsToSet(String pointer) {
+        int id = getPointerId(pointer);
+        if (id < 0) {
+            return List.of();
+        }
+        return Arrays.stream(getPointsToSet(id))
+                .mapToObj(this::getObject)
+                .toList();
+    }
+
+    /**
+     * @return the number of objects in this snapshot.
+     */
+    public int getNumberOfObjects() {
+        return objects.length;
+    }
+
+    /**
+     * @return name of the object of given id.
+     */
+    public String getObject(int id) {
+        return objects[id];
+    }
+
+    /**
+     * @return names of the reachable (context-sensitive) methods.
+     */
+    public List<String> getReachableMethods() {
+        return List.of(methods);
+    }
+
+    /**
+     * @return names of the entry methods of the call graph.
+     */
+    public List<String> getEntryMethods() {
+        return Arrays.stream(entries)
+                .mapToObj(i -> methods[i])
+                .toList();
+    }
+
+    /**
+     * @return the number of call edges.
+     */
+    public int getNumberOfCallEdges() {
+        return edgeCallSites.length;
+    }
+
+    /**
+     * @return names of the callees of given call site.
+     * This query scans all call edges.
+     */
+    public List<String> getCalleesOf(String callSite) {
+        List<String> callees = new ArrayList<>();
+        for (int i = 0; i < edgeCallSites.length; ++i) {
+            if (callSites[edgeCallSites[i]].equals(callSite)) {
+                callees.add(methods[edgeCallees[i]]);
+            }
+        }
+        return callees;
+    }
+
+    /**
+     * @return names of the methods which contain the call sites
+     * that call given method. This query scans all call edges.
+     */
+    public List<String> getCallersOf(String method) {
+        List<String> callers = new ArrayList<>();
+        for (int i = 0; i < edgeCallees.length; ++i) {
+            if (methods[edgeCallees[i]].equals(method)) {
+                callers.add(methods[containers[edgeCallSites[i]]]);
+            }
+        }
+        return callers;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes given non-negative value in 7-bit groups, least significant
+     * group first, where the high bit of each byte but the last is set.
+     */
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Output stream which counts the written bytes, so that the positions
+     * of sections can be recorded as the file is written.
+     * Unlike {@link DataOutputStream#size()}, the count does not overflow
+     * for the files larger than 2 GB.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count = 0;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * A read-only file mapped in chunks, as a single mapping cannot exceed
+     * 2 GB. The values which span two chunks are assembled byte by byte.
+     * It also has a cursor for reading the file sequentially.
+     */
+    private static final class MappedFile {
+
+        private static final int CHUNK_BITS = 30;
+
+        private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+
+        private final ByteBuffer[] chunks;
+
+        private final long size;
+
+        private long position = 0;
+
+        private MappedFile(FileChannel channel) throws IOException {
+            size = channel.size();
+            chunks = new ByteBuffer[(int) ((size + CHUNK_SIZE - 1) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; ++i) {
+                long start = (long) i << CHUNK_BITS;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        start, Math.min(CHUNK_SIZE, size - start));
+            }
+        }
+
+        private long size() {
+            return size;
+        }
+
+        private long position() {
+            return position;
+        }
+
+        private void seek(long pos) {
+            position = pos;
+        }
+
+        private ByteBuffer chunkOf(long pos) {
+            return chunks[(int) (pos >>> CHUNK_BITS)];
+        }
+
+        private static int offsetOf(long pos) {
+            return (int) (pos & (CHUNK_SIZE - 1));
+        }
+
+        private byte getByte(long pos) {
+            return chunkOf(pos).get(offsetOf(pos));
+        }
+
+        private int getInt(long pos) {
+            ByteBuffer chunk = chunkOf(pos);
+            int offset = offsetOf(pos);
+            if (offset + Integer.BYTES <= chunk.limit()) {
+                return chunk.getInt(offset);
+            }
+            return (int) getBytesAsLong(pos, Integer.BYTES);
+        }
+
+        private long getLong(long pos) {
+            ByteBuffer chunk = chunkOf(pos);
+            int offset = offsetOf(pos);
+            if (offset + Long.BYTES <= chunk.limit()) {
+                return chunk.getLong(offset);
+            }
+            return getBytesAsLong(pos, Long.BYTES);
+        }
+
+        /**
+         * @return the big-endian value of n bytes at pos.
+         */
+        private long getBytesAsLong(long pos, int n) {
+            long value = 0;
+            for (int i = 0; i < n; ++i) {
+                value = (value << 8) | (getByte(pos + i) & 0xff);
+            }
+            return value;
+        }
+
+        private String getString(long pos) {
+            byte[] bytes = new byte[getInt(pos)];
+            pos += Integer.BYTES;
+            int copied = 0;
+            while (copied < bytes.length) {
+                ByteBuffer chunk = chunkOf(pos);
+                int offset = offsetOf(pos);
+                int n = Math.min(bytes.length - copied, chunk.limit() - offset);
+                chunk.get(offset, bytes, copied, n);
+                copied += n;
+                pos += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private byte readByte() {
+            return getByte(position++);
+        }
+
+        private int readInt() {
+            int value = getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        private String readString() {
+            String s = getString(position);
+            position += Integer.BYTES + getInt(position);
+            return s;
+        }
+
+        private String[] readStrings() {
+            String[] strings = new String[readInt()];
+            for (int i = 0; i < strings.length; ++i) {
+                strings[i] = readString();
+            }
+            return strings;
+        }
+
+        private int[] readInts() {
+            int[] ints = new int[readInt()];
+            for (int i = 0; i < ints.length; ++i) {
+                ints[i] = readInt();
+            }
+            return ints;
+        }
+    }
+}
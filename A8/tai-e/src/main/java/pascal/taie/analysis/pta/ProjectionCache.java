@@ -0,0 +1,178 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded and thread-safe cache of the points-to sets projected from
+ * pointer analysis results, e.g., the context-insensitive points-to sets
+ * of variables, or the points-to sets of field accesses like v.f.
+ * <p>
+ * The entries are partitioned by the hashes of their keys into segments,
+ * each of which is an access-ordered {@link LinkedHashMap} guarded by its
+ * own lock, so that the queries on different segments do not contend.
+ * When a segment is full, its least recently used entry is evicted when
+ * adding a new one, thus the eviction is LRU within each segment.
+ * The evicted projections are recomputed on demand. The projections are
+ * computed outside the locks, so that they can be computed in parallel.
+ * <p>
+ * The cached projections are shared by all queries, thus the projectors
+ * should make them immutable, e.g., by {@link java.util.Collections#unmodifiableSet}.
+ *
+ * @param <K> type of keys
+ * @param <V> type of projections
+ */
+public class ProjectionCache<K, V> {
+
+    /**
+     * Maximum number of segments, which must be a power of two.
+     */
+    private static final int MAX_SEGMENTS = 16;
+
+    private final int capacity;
+
+    private final List<Segment> segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity the maximum number of cached projections.
+     */
+    public ProjectionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "Capacity of projection cache must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        // the number of segments is a power of two, so that
+        // the segment of a key is selected by masking its hash
+        int n = Integer.highestOneBit(Math.min(capacity, MAX_SEGMENTS));
+        segments = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            // the capacities of segments sum to capacity
+            segments.add(new Segment(capacity / n + (i < capacity % n ? 1 : 0)));
+        }
+    }
+
+    private Segment segmentOf(K key) {
+        int h = key.hashCode();
+        return segments.get((h ^ (h >>> 16)) & (segments.size() - 1));
+    }
+
+    /**
+     * @return the projection for given key, which is computed by
+     * given function if it is absent in this cache.
+     */
+    public V get(K key, Function<? super K, ? extends V> projector) {
+        Segment segment = segmentOf(key);
+        V value;
+        segment.lock.lock();
+        try {
+            value = segment.get(key); // also marks the entry as recently used
+        } finally {
+            segment.lock.unlock();
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = projector.apply(key);
+        segment.lock.lock();
+        try {
+            V prev = segment.putIfAbsent(key, value);
+            return prev != null ? prev : value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the maximum number of cached projections.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of cached projections.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        long h = hits.sum(), m = misses.sum();
+        return String.format("ProjectionCache{size: %d/%d, segments: %d," +
+                        " hits: %d, misses: %d, hit rate: %.1f%%, evictions: %d}",
+                size(), capacity, segments.size(), h, m,
+                h + m == 0 ? 0.0 : 100.0 * h / (h + m), evictions.sum());
+    }
+
+    /**
+     * A segment of the cache, which evicts its least recently used entry
+     * when its size exceeds its capacity.
+     */
+    private class Segment extends LinkedHashMap<K, V> {
+
+        private final int segmentCapacity;
+
+        private final Lock lock = new ReentrantLock();
+
+        private Segment(int segmentCapacity) {
+            super(16, 0.75f, true);
+            this.segmentCapacity = segmentCapacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > segmentCapacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.config.AnalysisOptions;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Live instrumentation of pointer analysis solvers.
+ * <p>
+ * The solver updates the counters of this class while it runs, and the
+ * values of the {@link Gauge}s are read from the solver on demand.
+ * The metrics are reported every "metrics-interval" seconds (default 10)
+ * as log lines and as {@link SolverMetricsEvent}s for Java Flight Recorder,
+ * and once more when the solver finishes.
+ * <p>
+ * The metrics are enabled by option "metrics". When they are disabled,
+ * every update is a single branch on a final field. The solvers always
+ * hold a (possibly disabled) instance of this class, which is never null.
+ */
+public class SolverMetrics {
+
+    private static final Logger logger = LogManager.getLogger(SolverMetrics.class);
+
+    /**
+     * Values that are read from the solver on demand.
+     */
+    public enum Gauge {
+        WORK_LIST_LENGTH("work-list length"),
+        PFG_EDGES("PFG edges"),
+        CONTEXTS("contexts"),
+        CS_OBJS("CSObjs");
+
+        private final String description;
+
+        Gauge(String description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * The time is only checked every (this mask + 1) processed entries.
+     */
+    private static final long CHECK_MASK = 0x3ff;
+
+    private final String solver;
+
+    private final boolean enabled;
+
+    private final long intervalNanos;
+
+    private final Map<Gauge, LongSupplier> gauges = new EnumMap<>(Gauge.class);
+
+    private long processedEntries = 0;
+
+    private long callResolutions = 0;
+
+    private long largestPointsToSet = 0;
+
+    private final long startTime;
+
+    private long lastReportTime;
+
+    private long lastReportEntries = 0;
+
+    private long nextReportTime;
+
+    /**
+     * @param solver   name of the instrumented solver.
+     * @param options  options of the pointer analysis.
+     */
+    public SolverMetrics(String solver, AnalysisOptions options) {
+        this.solver = solver;
+        this.enabled = options.getBooleanOrDefault("metrics", false);
+        int interval = options.get("metrics-interval") instanceof Integer i ? i : 10;
+        this.intervalNanos = interval * 1_000_000_000L;
+        this.startTime = System.nanoTime();
+        this.lastReportTime = startTime;
+        this.nextReportTime = startTime + intervalNanos;
+    }
+
+    /**
+     * @return metrics which are disabled, for the solvers
+     * (or their parts) which run without analysis options.
+     */
+    public static SolverMetrics disabled(String solver) {
+        return new SolverMetrics(solver, new AnalysisOptions(Map.of()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the number of processed work-list entries so far,
+     * or 0 if the metrics are disabled.
+     */
+    public long getProcessedEntries() {
+        return processedEntries;
+    }
+
+    /**
+     * @return the number of call resolutions so far,
+     * or 0 if the metrics are disabled.
+     */
+    public long getCallResolutions() {
+        return callResolutions;
+    }
+
+    /**
+     * @return the size of the largest points-to set in the processed
+     * entries so far, or 0 if the metrics are disabled.
+     */
+    public long getLargestPointsToSet() {
+        return largestPointsToSet;
+    }
+
+    /**
+     * Sets the supplier of the value of given gauge. The gauges without
+     * supplier are reported as -1.
+     */
+    public void setGauge(Gauge gauge, LongSupplier supplier) {
+        gauges.put(gauge, supplier);
+    }
+
+    /**
+     * The solver must call this method after it retrieves an entry
+     * from the work list.
+     *
+     * @param pointsToSetSize size of the points-to set of the pointer
+     *                        in the entry.
+     */
+    public void onEntryProcessed(int pointsToSetSize) {
+        if (enabled) {
+            ++processedEntries;
+            if (pointsToSetSize > largestPointsToSet) {
+                largestPointsToSet = pointsToSetSize;
+            }
+            if ((processedEntries & CHECK_MASK) == 0
+                    && System.nanoTime() >= nextReportTime) {
+                report(false);
+            }
+        }
+    }
+
+    /**
+     * The solver must call this method when it resolves the callee
+     * of a call site.
+     */
+    public void onCallResolution() {
+        if (enabled) {
+            ++callResolutions;
+        }
+    }
+
+    /**
+     * Reports the final metrics. The solver must call this method
+     * when it reaches fixpoint.
+     */
+    public void onFinish() {
+        if (enabled) {
+            report(true);
+        }
+    }
+
+    private void report(boolean finished) {
+        long now = System.nanoTime();
+        long elapsed = now - lastReportTime;
+        long rate = elapsed > 0 ?
+                (processedEntries - lastReportEntries) * 1_000_000_000L / elapsed : 0;
+        lastReportTime = now;
+        lastReportEntries = processedEntries;
+        nextReportTime = now + intervalNanos;
+        StringBuilder gaugeValues = new StringBuilder();
+        for (Gauge gauge : Gauge.values()) {
+            gaugeValues.append(", ").append(gauge.description)
+                    .append(": ").append(getGauge(gauge));
+        }
+        logger.info("[{}{}] {}s, entries: {} ({}/s){}, call resolutions: {}," +
+                        " largest pts: {}", solver, finished ? " finished" : "",
+                (now - startTime) / 1_000_000_000L, processedEntries, rate,
+                gaugeValues, callResolutions, largestPointsToSet);
+        SolverMetricsEvent event = new SolverMetricsEvent();
+        if (event.isEnabled()) {
+            event.solver = solver;
+            event.finished = finished;
+            event.processedEntries = processedEntries;
+            event.entriesPerSecond = rate;
+            event.workListLength = getGauge(Gauge.WORK_LIST_LENGTH);
+            event.pfgEdges = getGauge(Gauge.PFG_EDGES);
+            event.callResolutions = callResolutions;
+            event.contexts = getGauge(Gauge.CONTEXTS);
+            event.csObjs = getGauge(Gauge.CS_OBJS);
+            event.largestPointsToSet = largestPointsToSet;
+            event.commit();
+        }
+    }
+
+    private long getGauge(Gauge gauge) {
+        LongSupplier supplier = gauges.get(gauge);
+        return supplier != null ? supplier.getAsLong() : -1;
+    }
+}
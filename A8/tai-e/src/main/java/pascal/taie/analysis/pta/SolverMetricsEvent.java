@@ -0,0 +1,75 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event of {@link SolverMetrics}. The events are
+ * only recorded when a recording is running, e.g., with JVM option
+ * -XX:StartFlightRecording, and the gauges which are not available
+ * for a solver are recorded as -1.
+ */
+@Name("pascal.taie.SolverMetrics")
+@Label("Solver Metrics")
+@Category({"Tai-e", "Pointer Analysis"})
+@Description("Periodic snapshot of the counters of a pointer analysis solver")
+@StackTrace(false)
+class SolverMetricsEvent extends Event {
+
+    @Label("Solver")
+    String solver;
+
+    @Label("Finished")
+    boolean finished;
+
+    @Label("Processed Entries")
+    long processedEntries;
+
+    @Label("Entries per Second")
+    long entriesPerSecond;
+
+    @Label("Work-list Length")
+    long workListLength;
+
+    @Label("PFG Edges")
+    long pfgEdges;
+
+    @Label("Call Resolutions")
+    long callResolutions;
+
+    @Label("Contexts")
+    long contexts;
+
+    @Label("CSObjs")
+    long csObjs;
+
+    @Label("Largest Points-to Set")
+    long largestPointsToSet;
+}
@@ -0,0 +1,161 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.heap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Heap model which merges the objects allocated at different sites
+ * into one object per type, for the types matching given patterns.
+ * The objects of other types are still abstracted by allocation sites.
+ * <p>
+ * The patterns are given by option "merge-types", either as a list
+ * or as a comma-separated string. A pattern ending with ".*" matches
+ * all classes in the package and its sub-packages (e.g., "java.util.*"),
+ * and any other pattern matches the class of exactly that name
+ * (e.g., "java.lang.Integer").
+ */
+public class TypeMergingModel extends AbstractHeapModel {
+
+    private static final Logger logger = LogManager.getLogger(TypeMergingModel.class);
+
+    private static final String WILDCARD = "*";
+
+    /**
+     * Package prefixes given by wildcard patterns, e.g., "java.util.".
+     */
+    private final List<String> prefixes;
+
+    /**
+     * Class names given by exact patterns.
+     */
+    private final Set<String> names;
+
+    /**
+     * Cache of the pattern matching results of types.
+     */
+    private final Map<Type, Boolean> mergedTypes = Maps.newMap();
+
+    /**
+     * Allocation sites whose objects have been merged.
+     */
+    private final Set<New> mergedSites = Sets.newSet();
+
+    public TypeMergingModel(AnalysisOptions options) {
+        super(options);
+        List<String> patterns = parsePatterns(options.get("merge-types"));
+        prefixes = patterns.stream()
+                .filter(p -> p.endsWith(WILDCARD))
+                .map(p -> p.substring(0, p.length() - WILDCARD.length()))
+                .toList();
+        names = Set.copyOf(patterns.stream()
+                .filter(p -> !p.endsWith(WILDCARD))
+                .toList());
+    }
+
+    private static List<String> parsePatterns(Object value) {
+        if (value instanceof Collection<?> c) {
+            return c.stream().map(Object::toString).map(String::strip).toList();
+        } else if (value instanceof String s) {
+            return List.of(s.split(",")).stream()
+                    .map(String::strip)
+                    .filter(p -> !p.isEmpty())
+                    .toList();
+        } else {
+            return List.of();
+        }
+    }
+
+    @Override
+    protected Obj doGetObj(New allocSite) {
+        Type type = allocSite.getRValue().getType();
+        if (isMergedType(type)) {
+            mergedSites.add(allocSite);
+            return getMergedObj(allocSite);
+        }
+        return getNewObj(allocSite);
+    }
+
+    /**
+     * @return true if the objects of given type are merged by this model,
+     * otherwise false.
+     */
+    public boolean isMergedType(Type type) {
+        return mergedTypes.computeIfAbsent(type, t -> {
+            if (t instanceof ClassType) {
+                String name = t.getName();
+                return names.contains(name) ||
+                        prefixes.stream().anyMatch(name::startsWith);
+            }
+            return false;
+        });
+    }
+
+    /**
+     * @return true if given object is a merged object created by this model,
+     * otherwise false.
+     */
+    public boolean isMergedObj(Obj obj) {
+        return obj instanceof MergedObj && isMergedType(obj.getType());
+    }
+
+    /**
+     * @return the number of allocation sites whose objects have been merged.
+     */
+    public int getNumberOfMergedSites() {
+        return mergedSites.size();
+    }
+
+    /**
+     * @return the number of merged objects, i.e., the number of
+     * merged types which have been allocated.
+     */
+    public int getNumberOfMergedObjs() {
+        return (int) mergedSites.stream()
+                .map(site -> site.getRValue().getType())
+                .distinct()
+                .count();
+    }
+
+    /**
+     * Logs the number of objects merged by this model.
+     */
+    public void logStatistics() {
+        int sites = getNumberOfMergedSites();
+        int objs = getNumberOfMergedObjs();
+        logger.info("Merged {} allocation-site object(s) into {} object(s)" +
+                " by type, {} object(s) fewer", sites, objs, sites - objs);
+    }
+}
@@ -22,12 +22,22 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisSnapshot;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.MergedObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.core.heap.TypeMergingModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.pts.PointsToSetCompactor;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
@@ -35,6 +45,7 @@ import pascal.taie.util.Strings;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
 
 /**
  * Context-sensitive pointer analysis.
@@ -43,6 +54,17 @@ public class CSPTA extends ProgramAnalysis {
 
     public static final String ID = "cspta";
 
+    /**
+     * Key of the number of work-list entries processed by the solver,
+     * stored in {@link PointerAnalysisResult}. Each entry is a (pointer,
+     * points-to set) pair polled by {@link Solver}'s main loop, including
+     * the entries whose objects are all known already, thus the count is
+     * a measure of solver work, not of distinct propagations.
+     */
+    public static final String ITERATIONS = "cspta.iterations";
+
+    private static final Logger logger = LogManager.getLogger(CSPTA.class);
+
     public CSPTA(AnalysisConfig config) {
         super(config);
     }
@@ -50,15 +72,68 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
+        HeapModel heapModel = getHeapModel(options);
+        Solver solver = new Solver(options, heapModel,
                 getContextSelector(options.getString("cs")));
         solver.solve();
         PointerAnalysisResult result = solver.getResult();
+        if (heapModel instanceof TypeMergingModel model) {
+            logMergeStatistics(model, result);
+        }
+        if (options.getBooleanOrDefault("compact-pts", false)) {
+            // share equal points-to sets among pointers for the clients
+            // which hold the result for long
+            PointsToSetCompactor.compact(result);
+        }
+        String snapshot = options.getString("save-snapshot");
+        if (snapshot != null) {
+            // the snapshot can be reloaded by PointerAnalysisSnapshot.load()
+            // to query or compare (option "compare-mode:snapshot")
+            // the points-to sets and call graph in later runs
+            PointerAnalysisSnapshot.write(result, Path.of(snapshot));
+        }
         ResultProcessor.process(options, result);
         return result;
     }
 
+    private static HeapModel getHeapModel(AnalysisOptions options) {
+        // objects of the types given by option "merge-types" are
+        // merged by type, the others are abstracted by allocation sites
+        return options.get("merge-types") != null ?
+                new TypeMergingModel(options) :
+                new AllocationSiteBasedModel(options);
+    }
+
+    /**
+     * Logs the objects merged by type-merging heap model and their
+     * effect on the volume of variable points-to sets.
+     * <p>
+     * The saved entries are an upper bound: a merged object in a points-to
+     * set is counted as all of its allocation sites but one, while without
+     * merging the set may contain only some of them. The exact number needs
+     * a run without merging, which is what this statistics avoids.
+     */
+    private static void logMergeStatistics(
+            TypeMergingModel model, PointerAnalysisResult result) {
+        model.logStatistics();
+        long total = 0, merged = 0, savedUpperBound = 0;
+        for (CSVar csVar : result.getCSVars()) {
+            for (CSObj csObj : csVar.getPointsToSet()) {
+                ++total;
+                Obj obj = csObj.getObject();
+                if (model.isMergedObj(obj)) {
+                    ++merged;
+                    // each merged object stands for at most all of
+                    // its represented objects in the points-to set
+                    savedUpperBound += ((MergedObj) obj).getAllocation().size() - 1;
+                }
+            }
+        }
+        logger.info("Var points-to volume: {} entries, {} on merged objects," +
+                        " at most {} entries saved by merging (upper bound)",
+                total, merged, savedUpperBound);
+    }
+
     private static ContextSelector getContextSelector(String cs) {
         if (cs.equals("ci")) {
             return new CISelector();
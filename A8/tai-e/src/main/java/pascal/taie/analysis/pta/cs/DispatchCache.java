@@ -0,0 +1,73 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
+
+/**
+ * Caches the callees of virtual calls resolved on receiver types.
+ * Each (receiver type, call site) pair is dispatched at most once
+ * in the class hierarchy, no matter how many receiver objects
+ * (and their contexts) have the same type.
+ */
+class DispatchCache {
+
+    private final TwoKeyMap<Type, Invoke, JMethod> callees = Maps.newTwoKeyMap();
+
+    private long hits = 0;
+
+    private long misses = 0;
+
+    /**
+     * @return the callee of callSite dispatched on receiver type,
+     * or null if the callee cannot be resolved.
+     */
+    JMethod resolve(Type type, Invoke callSite) {
+        JMethod callee = callees.get(type, callSite);
+        if (callee != null) {
+            ++hits;
+        } else {
+            // unresolvable call sites are not cached, they are rare
+            // and counted as misses each time
+            ++misses;
+            callee = CallGraphs.resolveCallee(type, callSite);
+            if (callee != null) {
+                callees.put(type, callSite, callee);
+            }
+        }
+        return callee;
+    }
+
+    @Override
+    public String toString() {
+        long total = hits + misses;
+        return String.format("DispatchCache{%d lookups, %d hits (%.1f%%), %d entries}",
+                total, hits, total == 0 ? 0.0 : 100.0 * hits / total,
+                callees.size());
+    }
+}
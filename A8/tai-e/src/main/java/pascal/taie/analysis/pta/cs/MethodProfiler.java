@@ -0,0 +1,215 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attributes the cost of pointer analysis to the methods of the program.
+ * For each method, the profiler records the number of its contexts,
+ * the points-to set volume of its CSVars, and the number of work-list
+ * entries on its pointers and the time taken to process them.
+ * <p>
+ * The entries on instance fields and array indexes are attributed to
+ * the methods which allocate the base objects, and the entries on
+ * static fields are attributed to no method (reported as "-").
+ * The time of an entry is measured from its retrieval to the retrieval
+ * of the next entry, thus profiling only costs one timestamp and one
+ * map lookup per entry.
+ * <p>
+ * The profiler is enabled by option "method-profile". The methods are
+ * reported in descending order of time: the first "method-profile-top"
+ * (default 30) ones are logged, and all of them are written to the file
+ * given by option "method-profile-file" (if any).
+ */
+class MethodProfiler {
+
+    private static final Logger logger = LogManager.getLogger(MethodProfiler.class);
+
+    private static final String HEADER =
+            "method\tcontexts\tpts-volume\tentries\ttime-ms";
+
+    /**
+     * Cost of a method. Method null stands for the static fields.
+     */
+    private static class Cost {
+
+        private final JMethod method;
+
+        private long contexts = 0;
+
+        private long ptsVolume = 0;
+
+        private long entries = 0;
+
+        private long nanos = 0;
+
+        private Cost(JMethod method) {
+            this.method = method;
+        }
+
+        @Override
+        public String toString() {
+            return String.join("\t", method != null ? method.toString() : "-",
+                    Long.toString(contexts), Long.toString(ptsVolume),
+                    Long.toString(entries), Long.toString(nanos / 1_000_000));
+        }
+    }
+
+    private final int top;
+
+    @Nullable
+    private final String file;
+
+    private final Map<JMethod, Cost> costs = Maps.newMap();
+
+    /**
+     * Cost of the entry being processed.
+     */
+    private Cost current;
+
+    private long currentStart;
+
+    /**
+     * Cost of the static fields.
+     */
+    private final Cost staticCost = new Cost(null);
+
+    private MethodProfiler(int top, @Nullable String file) {
+        this.top = top;
+        this.file = file;
+    }
+
+    /**
+     * @return the profiler if it is enabled by the options, otherwise null.
+     */
+    @Nullable
+    static MethodProfiler make(AnalysisOptions options) {
+        if (!options.getBooleanOrDefault("method-profile", false)) {
+            return null;
+        }
+        int top = options.get("method-profile-top") instanceof Integer i ? i : 30;
+        return new MethodProfiler(top, options.getString("method-profile-file"));
+    }
+
+    /**
+     * Called when the solver retrieves an entry of given pointer
+     * from the work list.
+     */
+    void onEntry(Pointer pointer) {
+        long now = System.nanoTime();
+        if (current != null) {
+            current.nanos += now - currentStart;
+        }
+        current = getCost(getMethodOf(pointer));
+        ++current.entries;
+        currentStart = now;
+    }
+
+    /**
+     * Collects the contexts and points-to set volume of each method,
+     * and reports the costs. Called when the solver reaches fixpoint.
+     */
+    void onFinish(CSCallGraph callGraph, CSManager csManager) {
+        if (current != null) {
+            current.nanos += System.nanoTime() - currentStart;
+            current = null;
+        }
+        callGraph.reachableMethods().forEach(csMethod ->
+                ++getCost(csMethod.getMethod()).contexts);
+        for (CSVar csVar : csManager.getCSVars()) {
+            getCost(csVar.getVar().getMethod()).ptsVolume +=
+                    csVar.getPointsToSet().size();
+        }
+        List<Cost> sorted = costs.values()
+                .stream()
+                .sorted(Comparator.comparingLong((Cost c) -> c.nanos)
+                        .thenComparingLong(c -> c.ptsVolume)
+                        .reversed())
+                .toList();
+        if (staticCost.entries > 0) {
+            logger.info("Static fields: {} entries, {} ms", staticCost.entries,
+                    staticCost.nanos / 1_000_000);
+        }
+        logger.info("Top {} of {} methods by pointer analysis cost:",
+                Math.min(top, sorted.size()), sorted.size());
+        logger.info(HEADER);
+        sorted.stream().limit(top).forEach(cost -> logger.info(cost));
+        if (file != null) {
+            try (PrintStream out = new PrintStream(new FileOutputStream(file))) {
+                out.println(HEADER);
+                sorted.forEach(out::println);
+                if (staticCost.entries > 0) {
+                    out.println(staticCost);
+                }
+                logger.info("Method profile is written to {}", file);
+            } catch (FileNotFoundException e) {
+                throw new AnalysisException("Failed to write method profile to " + file, e);
+            }
+        }
+    }
+
+    private Cost getCost(@Nullable JMethod method) {
+        return method != null ?
+                costs.computeIfAbsent(method, Cost::new) : staticCost;
+    }
+
+    @Nullable
+    private static JMethod getMethodOf(Pointer pointer) {
+        if (pointer instanceof CSVar csVar) {
+            return csVar.getVar().getMethod();
+        } else if (pointer instanceof InstanceField field) {
+            return getAllocatorOf(field.getBase());
+        } else if (pointer instanceof ArrayIndex arrayIndex) {
+            return getAllocatorOf(arrayIndex.getArray());
+        } else { // static fields
+            return null;
+        }
+    }
+
+    @Nullable
+    private static JMethod getAllocatorOf(CSObj csObj) {
+        return csObj.getObject().getContainerMethod().orElse(null);
+    }
+}
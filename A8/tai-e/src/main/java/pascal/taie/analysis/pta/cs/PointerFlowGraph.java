@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.cs;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.TwoKeyMap;
 
 import java.util.Set;
 
@@ -38,6 +39,12 @@ class PointerFlowGraph {
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from an edge (source, target) to the type filter on it.
+     * Edges without filters are absent in this map.
+     */
+    private final TwoKeyMap<Pointer, Pointer, TypeFilter> filters = Maps.newTwoKeyMap();
+
     /**
      * Adds an edge (source -> target) to this PFG.
      *
@@ -48,10 +55,43 @@ class PointerFlowGraph {
         return successors.put(source, target);
     }
 
+    /**
+     * Adds an edge (source -> target) with a type filter to this PFG.
+     * Only the objects passing the filter should flow along the edge.
+     *
+     * @param filter the type filter on the edge, null for no filter.
+     * @return true if this PFG changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addEdge(Pointer source, Pointer target, TypeFilter filter) {
+        if (successors.put(source, target)) {
+            if (filter != null) {
+                filters.put(source, target, filter);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the type filter on edge (source -> target),
+     * or null if the edge has no filter.
+     */
+    TypeFilter getFilter(Pointer source, Pointer target) {
+        return filters.get(source, target);
+    }
+
     /**
      * @return successors of given pointer in the PFG.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
         return successors.get(pointer);
     }
+
+    /**
+     * @return the number of edges in this PFG.
+     */
+    int getNumberOfEdges() {
+        return successors.size();
+    }
 }
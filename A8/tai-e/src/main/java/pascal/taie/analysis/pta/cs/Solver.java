@@ -28,12 +28,14 @@ import pascal.taie.World;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.CachedPointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
-import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.SolverMetrics;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSElement;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -49,8 +51,10 @@ import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
 import pascal.taie.ir.stmt.Copy;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
@@ -61,8 +65,17 @@ import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ReferenceType;
 import pascal.taie.language.type.Type;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
 public class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
@@ -81,9 +94,17 @@ public class Solver {
 
     private WorkList workList;
 
+    private TypeFilter.Index typeFilters;
+
+    private DispatchCache dispatchCache;
+
     private TaintAnalysiss taintAnalysis;
 
-    private PointerAnalysisResult result;
+    private CachedPointerAnalysisResult result;
+
+    private SolverMetrics metrics;
+
+    private MethodProfiler profiler;
 
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
@@ -104,17 +125,79 @@ public class Solver {
         return csManager;
     }
 
+    /**
+     * @return successors of given pointer in the pointer flow graph.
+     */
+    public Set<Pointer> getPFGSuccsOf(Pointer pointer) {
+        return pointerFlowGraph.getSuccsOf(pointer);
+    }
+
+    /**
+     * @return true if PFG edge "source -> target" has a type filter.
+     */
+    public boolean hasTypeFilter(Pointer source, Pointer target) {
+        return pointerFlowGraph.getFilter(source, target) != null;
+    }
+
+    /**
+     * @return true if the objects of given type can flow along
+     * PFG edge "source -> target", i.e., the edge has no type filter,
+     * or the type passes the filter.
+     */
+    public boolean canFlow(Pointer source, Pointer target, Type type) {
+        TypeFilter filter = pointerFlowGraph.getFilter(source, target);
+        return filter == null || filter.accepts(type);
+    }
+
+    /**
+     * Adds given objects to the points-to set of pointer. The objects
+     * are added via the work list, thus they will be propagated later.
+     */
+    public void addPointsTo(Pointer pointer, PointsToSet pointsToSet) {
+        workList.addEntry(pointer, pointsToSet);
+    }
+
     void solve() {
-        initialize();
-        analyze();
-        taintAnalysis.onFinish();
+        try {
+            initialize();
+            analyze();
+            metrics.onFinish();
+            if (profiler != null) {
+                profiler.onFinish(callGraph, csManager);
+            }
+            long iterations = workList.getNumberOfProcessedEntries();
+            logger.info("Reached fixpoint after {} work-list entries", iterations);
+            getCachedResult().storeResult(CSPTA.ITERATIONS, iterations);
+            logger.info("Type filters dropped {} object(s) on PFG edges",
+                    typeFilters.getDropped());
+            logger.info(dispatchCache);
+            if (options.getBooleanOrDefault("precompute-projections", false)) {
+                getCachedResult().precomputeProjections();
+            }
+            taintAnalysis.onFinish();
+        } finally {
+            // closes the outputs of taint analysis (if any),
+            // even if the analysis fails
+            if (taintAnalysis != null) {
+                taintAnalysis.close();
+            }
+        }
     }
 
     private void initialize() {
         csManager = new MapBasedCSManager();
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        metrics = new SolverMetrics("cspta", options);
+        profiler = MethodProfiler.make(options);
+        workList = new WorkList(metrics, profiler);
+        metrics.setGauge(SolverMetrics.Gauge.WORK_LIST_LENGTH, workList::size);
+        metrics.setGauge(SolverMetrics.Gauge.PFG_EDGES, pointerFlowGraph::getNumberOfEdges);
+        metrics.setGauge(SolverMetrics.Gauge.CONTEXTS, this::countContexts);
+        metrics.setGauge(SolverMetrics.Gauge.CS_OBJS, () -> csManager.getObjects().size());
+        typeFilters = new TypeFilter.Index(World.get().getTypeSystem(),
+                World.get().getClassHierarchy());
+        dispatchCache = new DispatchCache();
         taintAnalysis = new TaintAnalysiss(this);
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
@@ -128,7 +211,10 @@ public class Solver {
      * Processes new reachable context-sensitive method.
      */
     private void addReachable(CSMethod csMethod) {
-        // TODO - finish me
+        if (callGraph.addReachableMethod(csMethod)) {
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            csMethod.getMethod().getIR().forEach(stmt -> stmt.accept(stmtProcessor));
+        }
     }
 
     /**
@@ -145,22 +231,172 @@ public class Solver {
             this.context = csMethod.getContext();
         }
 
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+        @Override
+        public Void visit(New stmt) {
+            Obj obj = heapModel.getObj(stmt);
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            addPointsTo(getCSVar(stmt.getLValue()),
+                    PointsToSetFactory.make(csManager.getCSObj(heapContext, obj)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(getCSVar(stmt.getRValue()), getCSVar(stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(Cast stmt) {
+            if (stmt.getRValue().getCastType() instanceof ReferenceType) {
+                addFilteredPFGEdge(getCSVar(stmt.getRValue().getValue()),
+                        getCSVar(stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(csManager.getStaticField(field),
+                        getCSVar(stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(getCSVar(stmt.getRValue()),
+                        csManager.getStaticField(field));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                Context calleeContext = contextSelector.selectContext(csCallSite, callee);
+                addCallEdge(new Edge<>(CallKind.STATIC, csCallSite,
+                        csManager.getCSMethod(calleeContext, callee)));
+            }
+            return null;
+        }
+
+        private CSVar getCSVar(Var var) {
+            return csManager.getCSVar(context, var);
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+        addPFGEdge(source, target, null);
+    }
+
+    /**
+     * Adds an edge "source -> target" to the PFG, which only lets
+     * the objects assignable to the type of target flow along it.
+     * This is useful for the edges whose target type may be narrower
+     * than the source type, e.g., the edges of casts.
+     */
+    private void addFilteredPFGEdge(Pointer source, Pointer target) {
+        addPFGEdge(source, target, typeFilters.getFilter(target.getType()));
+    }
+
+    /**
+     * Adds an edge "source -> target" with given type filter (null for
+     * no filter) to the PFG, and propagates pt(source) along the new edge.
+     */
+    private void addPFGEdge(Pointer source, Pointer target, TypeFilter filter) {
+        if (pointerFlowGraph.addEdge(source, target, filter)) {
+            taintAnalysis.onNewPFGEdge(source, target);
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                PointsToSet flowed = filterPointsToSet(source, target, pts);
+                if (!flowed.isEmpty()) {
+                    taintAnalysis.onPropagate(source, target, flowed);
+                    workList.addEntry(target, flowed);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the objects in pointsToSet which can flow along
+     * PFG edge "source -> target", i.e., the ones passing the type filter
+     * of the edge (if any), excluding the taint objects cut by sanitizers.
+     */
+    private PointsToSet filterPointsToSet(
+            Pointer source, Pointer target, PointsToSet pointsToSet) {
+        TypeFilter filter = pointerFlowGraph.getFilter(source, target);
+        PointsToSet pts = filter != null ? filter.filter(pointsToSet) : pointsToSet;
+        return taintAnalysis.sanitize(source, target, pts);
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
      */
     private void analyze() {
-        // TODO - finish me
+        WorkList.Entry entry;
+        while ((entry = workList.pollEntry()) != null) {
+            Pointer pointer = entry.pointer();
+            PointsToSet delta = propagate(pointer, entry.pointsToSet());
+            if (!delta.isEmpty() && pointer instanceof CSVar csVar) {
+                processObjects(csVar, delta, this::passThis);
+                taintAnalysis.onNewPointsToSet(csVar, delta);
+            }
+        }
+    }
+
+    /**
+     * Processes the field and array accesses and the instance calls
+     * on the new objects pointed by csVar. Besides the new objects in
+     * pt(csVar), this method also processes the objects which are kept
+     * out of the points-to sets, e.g., the taint objects in taint overlay.
+     *
+     * @param thisPasser the function that passes each receiver object
+     *                   to the this variable of its callee, e.g., via
+     *                   the points-to set of the variable.
+     */
+    public void processObjects(CSVar csVar, PointsToSet objs,
+                               BiConsumer<CSVar, CSObj> thisPasser) {
+        Var var = csVar.getVar();
+        Context context = csVar.getContext();
+        for (CSObj obj : objs) {
+            for (StoreField store : var.getStoreFields()) {
+                JField field = store.getFieldRef().resolve();
+                addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                        csManager.getInstanceField(obj, field));
+            }
+            for (LoadField load : var.getLoadFields()) {
+                JField field = load.getFieldRef().resolve();
+                addPFGEdge(csManager.getInstanceField(obj, field),
+                        csManager.getCSVar(context, load.getLValue()));
+            }
+            for (StoreArray store : var.getStoreArrays()) {
+                addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                        csManager.getArrayIndex(obj));
+            }
+            for (LoadArray load : var.getLoadArrays()) {
+                addPFGEdge(csManager.getArrayIndex(obj),
+                        csManager.getCSVar(context, load.getLValue()));
+            }
+        }
+        processCalls(csVar, objs, thisPasser);
+    }
+
+    /**
+     * Passes a receiver object to the this variable of its callee
+     * via the points-to set of the variable.
+     */
+    private void passThis(CSVar thisVar, CSObj recvObj) {
+        addPointsTo(thisVar, PointsToSetFactory.make(recvObj));
     }
 
     /**
@@ -168,18 +404,113 @@ public class Solver {
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        PointsToSet pts = pointer.getPointsToSet();
+        PointsToSet delta = PointsToSetFactory.make();
+        for (CSObj obj : pointsToSet) {
+            if (pts.addObject(obj)) {
+                delta.addObject(obj);
+            }
+        }
+        if (!delta.isEmpty()) {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                // objects flow along each edge through its type filter
+                PointsToSet flowed = filterPointsToSet(pointer, succ, delta);
+                if (!flowed.isEmpty()) {
+                    taintAnalysis.onPropagate(pointer, succ, flowed);
+                    workList.addEntry(succ, flowed);
+                }
+            }
+        }
+        return delta;
     }
 
     /**
-     * Processes instance calls when points-to set of the receiver variable changes.
+     * Processes an instance call on a receiver object, whose callee
+     * has been resolved.
      *
-     * @param recv    the receiver variable
-     * @param recvObj set of new discovered objects pointed by the variable.
+     * @param csCallSite the call site in the context of the receiver variable.
+     * @param recvObj    a new discovered object pointed by the receiver variable.
+     * @param callee     the callee dispatched on the type of recvObj.
+     * @param thisPasser the function that passes recvObj to the this
+     *                   variable of callee.
      */
-    private void processCall(CSVar recv, CSObj recvObj) {
-        // TODO - finish me
+    private void processCall(CSCallSite csCallSite, CSObj recvObj, JMethod callee,
+                             BiConsumer<CSVar, CSObj> thisPasser) {
+        Context calleeContext = contextSelector.selectContext(
+                csCallSite, recvObj, callee);
+        CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+        Var thisVar = callee.getIR().getThis();
+        if (thisVar != null) {
+            thisPasser.accept(csManager.getCSVar(calleeContext, thisVar), recvObj);
+        }
+        Invoke callSite = csCallSite.getCallSite();
+        addCallEdge(new Edge<>(CallGraphs.getCallKind(callSite), csCallSite, csCallee));
+    }
+
+    /**
+     * Processes instance calls on a batch of new discovered objects pointed
+     * by the receiver variable. The objects are grouped by their types,
+     * and each call site is dispatched once per type group
+     * (see also {@link DispatchCache}), then the resolved callee is
+     * fanned out to the contexts of all objects in the group.
+     *
+     * @param recv       the receiver variable
+     * @param recvObjs   set of new discovered objects pointed by the variable.
+     * @param thisPasser the function that passes each object to the this
+     *                   variable of its callee.
+     */
+    private void processCalls(CSVar recv, PointsToSet recvObjs,
+                              BiConsumer<CSVar, CSObj> thisPasser) {
+        List<Invoke> callSites = recv.getVar().getInvokes();
+        if (callSites.isEmpty()) {
+            return;
+        }
+        Map<Type, List<CSObj>> objsByType = new LinkedHashMap<>();
+        recvObjs.forEach(recvObj -> objsByType.computeIfAbsent(
+                recvObj.getObject().getType(), t -> new ArrayList<>())
+                .add(recvObj));
+        for (Invoke callSite : callSites) {
+            CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), callSite);
+            for (List<CSObj> objs : objsByType.values()) {
+                // the objects in a group share the callee,
+                // which is resolved on the first of them
+                JMethod callee = resolveCallee(objs.get(0), callSite);
+                if (callee != null) {
+                    objs.forEach(recvObj -> processCall(
+                            csCallSite, recvObj, callee, thisPasser));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a call edge to the call graph, and processes the new reachable
+     * callee and the PFG edges of parameter passing and return values.
+     */
+    private void addCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        if (callGraph.addEdge(edge)) {
+            CSMethod csCallee = edge.getCallee();
+            addReachable(csCallee);
+            // taint analysis handles the call before the PFG edges of it
+            // are added, so that sanitizers apply to the edges
+            taintAnalysis.onNewCallEdge(edge);
+            Context callerContext = edge.getCallSite().getContext();
+            Context calleeContext = csCallee.getContext();
+            Invoke callSite = edge.getCallSite().getCallSite();
+            IR ir = csCallee.getMethod().getIR();
+            InvokeExp invokeExp = callSite.getInvokeExp();
+            for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+                addPFGEdge(csManager.getCSVar(callerContext, invokeExp.getArg(i)),
+                        csManager.getCSVar(calleeContext, ir.getParam(i)));
+            }
+            Var result = callSite.getResult();
+            if (result != null) {
+                CSVar csResult = csManager.getCSVar(callerContext, result);
+                for (Var ret : ir.getReturnVars()) {
+                    addPFGEdge(csManager.getCSVar(calleeContext, ret), csResult);
+                }
+            }
+        }
     }
 
     /**
@@ -191,13 +522,36 @@ public class Solver {
      * @return the resolved callee.
      */
     private JMethod resolveCallee(CSObj recv, Invoke callSite) {
-        Type type = recv != null ? recv.getObject().getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+        metrics.onCallResolution();
+        if (recv == null) {
+            return CallGraphs.resolveCallee(null, callSite);
+        }
+        return dispatchCache.resolve(recv.getObject().getType(), callSite);
+    }
+
+    /**
+     * @return the number of distinct (method and heap) contexts
+     * of the CSVars and CSObjs so far.
+     */
+    private long countContexts() {
+        return Stream.concat(csManager.getCSVars().stream(),
+                        csManager.getObjects().stream())
+                .map(CSElement::getContext)
+                .distinct()
+                .count();
     }
 
     public PointerAnalysisResult getResult() {
+        return getCachedResult();
+    }
+
+    private CachedPointerAnalysisResult getCachedResult() {
         if (result == null) {
-            result = new PointerAnalysisResultImpl(csManager, callGraph);
+            // the capacity of projection caches can be given by
+            // option "projection-cache-size"
+            int capacity = options.get("projection-cache-size") instanceof Integer size ?
+                    size : CachedPointerAnalysisResult.DEFAULT_CACHE_CAPACITY;
+            result = new CachedPointerAnalysisResult(csManager, callGraph, capacity);
         }
         return result;
     }
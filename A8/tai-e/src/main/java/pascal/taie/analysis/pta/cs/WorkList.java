@@ -22,9 +22,11 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import pascal.taie.analysis.pta.SolverMetrics;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.Queue;
 
@@ -35,6 +37,31 @@ class WorkList {
 
     private final Queue<Entry> entries = new ArrayDeque<>();
 
+    /**
+     * Number of entries retrieved from this work list so far.
+     */
+    private long processed = 0;
+
+    private final SolverMetrics metrics;
+
+    @Nullable
+    private final MethodProfiler profiler;
+
+    WorkList() {
+        this(SolverMetrics.disabled("cspta"), null);
+    }
+
+    /**
+     * @param metrics  the metrics to be notified of the retrieved entries,
+     *                 which may be disabled but must not be null.
+     * @param profiler the profiler to be notified of the retrieved entries,
+     *                 or null if profiling is disabled.
+     */
+    WorkList(SolverMetrics metrics, @Nullable MethodProfiler profiler) {
+        this.metrics = metrics;
+        this.profiler = profiler;
+    }
+
     /**
      * Adds an entry to the work list.
      */
@@ -47,7 +74,32 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Entry entry = entries.poll();
+        if (entry != null) {
+            ++processed;
+            if (metrics.isEnabled()) {
+                metrics.onEntryProcessed(entry.pointer().getPointsToSet().size());
+            }
+            if (profiler != null) {
+                profiler.onEntry(entry.pointer());
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * @return the number of entries retrieved from this work list so far,
+     * i.e., the number of iterations the solver takes to reach fixpoint.
+     */
+    long getNumberOfProcessedEntries() {
+        return processed;
+    }
+
+    /**
+     * @return the number of entries in this work list.
+     */
+    int size() {
+        return entries.size();
     }
 
     /**
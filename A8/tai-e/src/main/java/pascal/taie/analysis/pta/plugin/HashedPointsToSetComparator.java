@@ -0,0 +1,201 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Streams;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the points-to sets of the analysis result with the ones
+ * in a dump file (in the format of {@link ResultProcessor}) in bounded
+ * memory. Instead of reading the whole file and materializing the string
+ * of each pointer, this comparator indexes the pointers of the result by
+ * the 128-bit hashes of their names, then streams the file line by line
+ * and compares the 128-bit hashes of the points-to sets. The objects of
+ * each points-to set are fed to the digest one by one, and only the digest
+ * of each expected points-to set is computed from the line, thus neither
+ * side builds the string of a whole points-to set. The full strings
+ * are materialized only for the mismatches.
+ */
+class HashedPointsToSetComparator {
+
+    private static final Logger logger = LogManager.getLogger(HashedPointsToSetComparator.class);
+
+    /**
+     * Separator between pointer and its points-to set.
+     */
+    private static final String SEP = " -> ";
+
+    /**
+     * Separator between objects in a points-to set,
+     * the same as {@link Streams#toString}.
+     */
+    private static final byte[] OBJ_SEP = ", ".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] OPEN = "[".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] CLOSE = "]".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 128-bit hash of a string.
+     */
+    private record Hash128(long high, long low) {
+    }
+
+    private final MessageDigest digest;
+
+    /**
+     * Map from the hashes of the names of pointers to the pointers.
+     * The matched pointers are removed during comparison.
+     */
+    private final Map<Hash128, Pointer> pointers = Maps.newMap();
+
+    private final List<String> mismatches = new ArrayList<>();
+
+    private HashedPointsToSetComparator() {
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AnalysisException("MD5 is unavailable", e);
+        }
+    }
+
+    /**
+     * Compares the points-to sets of result with the ones in input file.
+     *
+     * @throws AnalysisException if there are mismatches,
+     *                           or failed to read the input file.
+     */
+    static void compare(PointerAnalysisResult result, String input) {
+        logger.info("Comparing points-to set (hash) with {} ...", input);
+        HashedPointsToSetComparator comparator = new HashedPointsToSetComparator();
+        comparator.addPointers(result.getCSVars());
+        comparator.addPointers(result.getStaticFields());
+        comparator.addPointers(result.getInstanceFields());
+        comparator.addPointers(result.getArrayIndexes());
+        comparator.compare(Path.of(input));
+        if (!comparator.mismatches.isEmpty()) {
+            throw new AnalysisException("Mismatches of points-to set\n" +
+                    String.join("\n", comparator.mismatches));
+        }
+    }
+
+    private void addPointers(Collection<? extends Pointer> ptrs) {
+        ptrs.forEach(p -> pointers.put(hash(p.toString()), p));
+    }
+
+    private void compare(Path input) {
+        try (BufferedReader reader = Files.newBufferedReader(input)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int sep = line.indexOf(SEP);
+                if (sep < 0 || line.startsWith(ResultProcessor.TAINT_FLOW_PREFIX)) {
+                    continue;
+                }
+                Pointer pointer = pointers.remove(hash(line, 0, sep));
+                if (pointer == null) {
+                    mismatches.add(String.format("%s, expected: %s, given: null",
+                            line.substring(0, sep), line.substring(sep + SEP.length())));
+                    continue;
+                }
+                Hash128 expected = hash(line, sep + SEP.length(), line.length());
+                if (!hash(pointer).equals(expected)) {
+                    mismatches.add(String.format("%s, expected: %s, given: %s",
+                            line.substring(0, sep), line.substring(sep + SEP.length()),
+                            toString(pointer)));
+                }
+            }
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to read points-to set from " + input, e);
+        }
+        // the remaining pointers are absent in the input file
+        pointers.values().forEach(pointer ->
+                mismatches.add(String.format("%s, expected: null, given: %s",
+                        pointer, toString(pointer))));
+    }
+
+    private static String toString(Pointer pointer) {
+        return Streams.toString(pointer.getPointsToSet().objects());
+    }
+
+    private Hash128 hash(String s) {
+        return hash(s, 0, s.length());
+    }
+
+    /**
+     * @return hash of the characters of s in range [start, end).
+     */
+    private Hash128 hash(String s, int start, int end) {
+        digest.update(StandardCharsets.UTF_8.encode(
+                CharBuffer.wrap(s, start, end)));
+        return toHash128(digest.digest());
+    }
+
+    /**
+     * @return hash of the points-to set of pointer, which equals the hash
+     * of {@link #toString(Pointer)}, but the objects are fed to the digest
+     * one by one instead of being joined into a string.
+     */
+    private Hash128 hash(Pointer pointer) {
+        Iterator<String> objs = pointer.getPointsToSet()
+                .objects()
+                .map(Object::toString)
+                .sorted()
+                .iterator();
+        digest.update(OPEN);
+        while (objs.hasNext()) {
+            digest.update(objs.next().getBytes(StandardCharsets.UTF_8));
+            if (objs.hasNext()) {
+                digest.update(OBJ_SEP);
+            }
+        }
+        digest.update(CLOSE);
+        return toHash128(digest.digest());
+    }
+
+    private static Hash128 toHash128(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        return new Hash128(buf.getLong(), buf.getLong());
+    }
+}
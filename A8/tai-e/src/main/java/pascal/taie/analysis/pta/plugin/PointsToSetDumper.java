@@ -0,0 +1,279 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisSnapshot;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassMember;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Timer;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming writer of points-to sets, which is much faster than the
+ * sorted dump of {@link ResultProcessor} on large programs.
+ * The pointers are written by kind (variables, static fields,
+ * instance fields, then array indexes), and sorted by stable keys,
+ * e.g., method signature and name for variables, and container method
+ * and allocation index for objects, instead of by their full strings.
+ * Thus the text dumps of the same result are identical across runs,
+ * and in both formats, each pointer is identified by the order it is
+ * written. The output is written through a buffered file channel,
+ * and optionally compressed by gzip. Two formats are supported:
+ * <ul>
+ *     <li>{@link Format#TEXT}: one line per pointer, i.e.,
+ *     "pointer -> [obj1, obj2, ...]", followed by the taint flows
+ *     (if given). Only the objects in each line are sorted by their strings,
+ *     as {@link ResultProcessor} does, so that an uncompressed text dump
+ *     can be compared with the result (option "action:compare").
+ *     <li>{@link Format#BINARY}: {@link PointerAnalysisSnapshot}, which can be
+ *     loaded to compare with the result (option "compare-mode:snapshot").
+ *     It is not compressed by gzip, as it is memory-mapped when loaded.
+ * </ul>
+ */
+public class PointsToSetDumper {
+
+    private static final Logger logger = LogManager.getLogger(PointsToSetDumper.class);
+
+    public enum Format {
+        TEXT, BINARY;
+
+        /**
+         * @return the format of given name (case-insensitive).
+         * @throws ConfigException if name is not a valid format.
+         */
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new ConfigException("Unknown dump format '" + name +
+                    "', valid formats: " + Arrays.stream(values())
+                    .map(f -> f.name().toLowerCase())
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    /**
+     * Order of objects by container method, allocation index (if the
+     * allocation is a statement), and type, the remaining ties
+     * (e.g., the special objects) are broken by their strings.
+     */
+    private static final Comparator<Obj> OBJ_ORDER = Comparator
+            .comparing((Obj o) -> o.getContainerMethod()
+                    .map(ClassMember::getSignature).orElse(""))
+            .thenComparingInt(o -> o.getAllocation() instanceof Stmt s ?
+                    s.getIndex() : -1)
+            .thenComparing(o -> o.getType().getName())
+            .thenComparing(Obj::toString);
+
+    private static final Comparator<CSObj> CS_OBJ_ORDER = Comparator
+            .comparing(CSObj::getObject, OBJ_ORDER)
+            .thenComparing(o -> o.getContext().toString());
+
+    private static final Comparator<CSVar> VAR_ORDER = Comparator
+            .comparing((CSVar v) -> v.getVar().getMethod().getSignature())
+            .thenComparing(v -> v.getVar().getName())
+            .thenComparing(v -> v.getContext().toString());
+
+    private static final Comparator<StaticField> STATIC_FIELD_ORDER =
+            Comparator.comparing(f -> f.getField().getSignature());
+
+    private static final Comparator<InstanceField> INSTANCE_FIELD_ORDER = Comparator
+            .comparing(InstanceField::getBase, CS_OBJ_ORDER)
+            .thenComparing(f -> f.getField().getSignature());
+
+    private static final Comparator<ArrayIndex> ARRAY_INDEX_ORDER =
+            Comparator.comparing(ArrayIndex::getArray, CS_OBJ_ORDER);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Format format;
+
+    private final boolean gzip;
+
+    /**
+     * @param format the output format
+     * @param gzip   whether to compress the output by gzip
+     * @throws ConfigException if gzip is set for {@link Format#BINARY},
+     *                         as the binary dumps are memory-mapped
+     *                         when they are loaded.
+     */
+    public PointsToSetDumper(Format format, boolean gzip) {
+        if (format == Format.BINARY && gzip) {
+            throw new ConfigException("Binary dumps of points-to sets" +
+                    " cannot be compressed by gzip");
+        }
+        this.format = format;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Dumps the points-to sets of all pointers in result to given file.
+     *
+     * @throws AnalysisException if failed to write the file
+     */
+    public void dump(PointerAnalysisResult result, Path output) {
+        dump(result, output, null);
+    }
+
+    /**
+     * Dumps the points-to sets of all pointers in result, and given
+     * taint flows (in text format only), to given file.
+     *
+     * @param taintFlows the taint flows to dump, null if taint analysis
+     *                   is disabled.
+     * @throws AnalysisException if failed to write the file
+     */
+    public void dump(PointerAnalysisResult result, Path output,
+                     Collection<TaintFlow> taintFlows) {
+        Timer timer = new Timer("Dumping points-to sets");
+        timer.start();
+        try (OutputStream out = open(output)) {
+            if (format == Format.TEXT) {
+                writeText(result, taintFlows, out);
+            } else {
+                if (taintFlows != null) {
+                    logger.warn("Taint flows are not dumped in binary format," +
+                            " use text format to dump them");
+                }
+                // the pointers are sorted so that the ids of pointers
+                // and objects are stable across runs
+                PointerAnalysisSnapshot.write(result, sortPointers(result), out);
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to dump points-to sets to " + output, e);
+        }
+        timer.stop();
+        logger.info("Dumped points-to sets ({}{}) to {} in {}s",
+                format, gzip ? ", gzip" : "", output, timer.inSecond());
+    }
+
+    private OutputStream open(Path output) throws IOException {
+        FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream out = Channels.newOutputStream(channel);
+        return gzip ?
+                new GZIPOutputStream(out, BUFFER_SIZE) :
+                new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+
+    private static void writeText(PointerAnalysisResult result,
+                                  Collection<TaintFlow> taintFlows,
+                                  OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        List<List<? extends Pointer>> groups = sortPointers(result);
+        writeText(writer, groups.get(0), "variables");
+        writeText(writer, groups.get(1), "static fields");
+        writeText(writer, groups.get(2), "instance fields");
+        writeText(writer, groups.get(3), "array indexes");
+        if (taintFlows != null) {
+            // the same format as ResultProcessor
+            writer.write("Detected " + taintFlows.size() + " taint flow(s):\n");
+            for (TaintFlow taintFlow : taintFlows) {
+                writer.write(taintFlow.toString());
+                writer.write('\n');
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * @return the pointers of result in four groups (variables,
+     * static fields, instance fields, and array indexes),
+     * each of which is sorted by stable keys.
+     */
+    private static List<List<? extends Pointer>> sortPointers(
+            PointerAnalysisResult result) {
+        return List.of(
+                sorted(result.getCSVars(), VAR_ORDER),
+                sorted(result.getStaticFields(), STATIC_FIELD_ORDER),
+                sorted(result.getInstanceFields(), INSTANCE_FIELD_ORDER),
+                sorted(result.getArrayIndexes(), ARRAY_INDEX_ORDER));
+    }
+
+    private static <T> List<T> sorted(Collection<T> c, Comparator<? super T> order) {
+        List<T> list = new ArrayList<>(c);
+        list.sort(order);
+        return list;
+    }
+
+    private static void writeText(Writer writer,
+                                  Collection<? extends Pointer> pointers,
+                                  String desc) throws IOException {
+        writer.write("Points-to sets of all ");
+        writer.write(desc);
+        writer.write('\n');
+        for (Pointer pointer : pointers) {
+            writer.write(pointer.toString());
+            writer.write(" -> [");
+            // objects are sorted by their strings, as Streams.toString() does
+            String[] objs = pointer.getPointsToSet()
+                    .objects()
+                    .map(CSObj::toString)
+                    .toArray(String[]::new);
+            Arrays.sort(objs);
+            for (int i = 0; i < objs.length; ++i) {
+                if (i > 0) {
+                    writer.write(", ");
+                }
+                writer.write(objs[i]);
+            }
+            writer.write("]\n");
+        }
+        writer.write('\n');
+    }
+}
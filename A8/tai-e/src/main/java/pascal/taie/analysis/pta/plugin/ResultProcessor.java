@@ -25,10 +25,12 @@ package pascal.taie.analysis.pta.plugin;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisSnapshot;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
 
@@ -41,6 +43,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
@@ -70,6 +73,11 @@ public class ResultProcessor {
      */
     private static final String SEP = " -> ";
 
+    /**
+     * Prefix of the lines of taint flows, which also contain {@link #SEP}.
+     */
+    static final String TAINT_FLOW_PREFIX = "TaintFlow{";
+
     private static final DecimalFormat formatter = new DecimalFormat("#,####");
 
     public static void process(AnalysisOptions options,
@@ -83,15 +91,40 @@ public class ResultProcessor {
         boolean taintEnabled = options.getString("taint-config") != null;
         switch (action) {
             case "dump":
-                dumpPointsToSet(result, file, taintEnabled);
+                String format = options.getString("dump-format");
+                if (format != null && file != null) {
+                    // option "dump-format" (text or binary) selects
+                    // the streaming dumper, whose text dump is gzipped
+                    // if option "dump-gzip" is set or file ends with ".gz"
+                    boolean gzip = options.getBooleanOrDefault("dump-gzip", false)
+                            || file.endsWith(".gz");
+                    new PointsToSetDumper(PointsToSetDumper.Format.of(format), gzip)
+                            .dump(result, Path.of(file),
+                                    taintEnabled ? getTaintFlows(result) : null);
+                } else {
+                    dumpPointsToSet(result, file, taintEnabled);
+                }
                 break;
             case "compare":
-                if (taintEnabled) {
+                // option "compare-mode" (text, hash or snapshot) compares
+                // points-to sets even if taint analysis is enabled
+                String mode = options.getString("compare-mode");
+                if (mode == null && taintEnabled) {
                     // when taint analysis is enabled, we only compare
-                    // detected taint flows
+                    // detected taint flows by default
                     compareTaintFlows(result, file);
-                } else {
+                } else if (mode == null || "text".equals(mode)) {
                     comparePointsToSet(result, file);
+                } else if ("hash".equals(mode)) {
+                    // compares the hashes of points-to sets in bounded memory
+                    HashedPointsToSetComparator.compare(result, file);
+                } else if ("snapshot".equals(mode)) {
+                    // compares with the snapshot written by option
+                    // "save-snapshot" or "dump-format:binary"
+                    compareSnapshot(result, file);
+                } else {
+                    throw new ConfigException("Unknown compare mode '" + mode +
+                            "', valid modes: text, hash, snapshot");
                 }
                 break;
         }
@@ -197,11 +230,48 @@ public class ResultProcessor {
         }
     }
 
+    /**
+     * Compares the points-to sets of result with the ones in given snapshot,
+     * which is loaded via memory mapping.
+     */
+    private static void compareSnapshot(PointerAnalysisResult result, String input) {
+        logger.info("Comparing points-to set with snapshot {} ...", input);
+        PointerAnalysisSnapshot snapshot = PointerAnalysisSnapshot.load(Path.of(input));
+        Map<String, Pointer> pointers = new LinkedHashMap<>();
+        addPointers(pointers, result.getCSVars());
+        addPointers(pointers, result.getStaticFields());
+        addPointers(pointers, result.getInstanceFields());
+        addPointers(pointers, result.getArrayIndexes());
+        List<String> mismatches = new ArrayList<>();
+        pointers.forEach((pointerStr, pointer) -> {
+            String given = toString(pointer.getPointsToSet());
+            int id = snapshot.getPointerId(pointerStr);
+            String expected = id < 0 ? null : Streams.toString(
+                    Arrays.stream(snapshot.getPointsToSet(id)).mapToObj(snapshot::getObject));
+            if (!given.equals(expected)) {
+                mismatches.add(String.format("%s, expected: %s, given: %s",
+                        pointerStr, expected, given));
+            }
+        });
+        for (int i = 0; i < snapshot.getNumberOfPointers(); ++i) {
+            String pointerStr = snapshot.getPointer(i);
+            if (!pointers.containsKey(pointerStr)) {
+                mismatches.add(String.format("%s, expected: %s, given: null",
+                        pointerStr, snapshot.getPointsToSet(pointerStr)));
+            }
+        }
+        if (!mismatches.isEmpty()) {
+            throw new AnalysisException("Mismatches of points-to set\n" +
+                    String.join("\n", mismatches));
+        }
+    }
+
     private static Map<String, String> readPointsToSets(String input) {
         try {
             Map<String, String> result = new LinkedHashMap<>();
             Files.lines(Path.of(input))
-                    .filter(line -> line.contains(SEP))
+                    .filter(line -> line.contains(SEP) &&
+                            !line.startsWith(TAINT_FLOW_PREFIX))
                     .map(line -> line.split(SEP))
                     .forEach(s -> result.put(s[0], s[1]));
             return result;
@@ -234,7 +304,9 @@ public class ResultProcessor {
      */
     private static Set<TaintFlow> getTaintFlows(PointerAnalysisResult result) {
         for (String key : result.getKeys()) {
-            if (key.contains("Taint")) { // adapt different taint analyses
+            // adapt different taint analyses, and skip the auxiliary
+            // results of taint analysis, e.g., witness paths
+            if (key.contains("Taint") && result.getResult(key) instanceof Set<?>) {
                 return result.getResult(key);
             }
         }
@@ -269,7 +341,7 @@ public class ResultProcessor {
         try {
             List<String> taintFlows = new ArrayList<>();
             Files.lines(Path.of(input))
-                    .filter(line -> line.startsWith("TaintFlow{") && line.contains(SEP))
+                    .filter(line -> line.startsWith(TAINT_FLOW_PREFIX) && line.contains(SEP))
                     .forEach(taintFlows::add);
             return taintFlows;
         } catch (IOException e) {
@@ -0,0 +1,201 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.util.AnalysisException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes taint flows to an append-only file in JSON Lines format,
+ * i.e., one JSON object per taint flow, e.g.,
+ * <pre>
+ * {"source":"...","sink":"...","index":0}
+ * </pre>
+ * The output is flushed every {@code flushFlows} flows, and by a timer
+ * every {@code flushMillis} milliseconds, so that the flows found by
+ * a long run are available before it ends, even if the analysis finds
+ * no more flows for a long time.
+ * <p>
+ * The writer must be closed, either by {@link #onFinish()} or by
+ * {@link #close()} if the analysis fails.
+ */
+public class JsonLinesTaintFlowWriter implements TaintFlowListener, Closeable {
+
+    private static final Logger logger = LogManager.getLogger(JsonLinesTaintFlowWriter.class);
+
+    /**
+     * Default number of flows written between two flushes.
+     */
+    public static final int DEFAULT_FLUSH_FLOWS = 64;
+
+    /**
+     * Default period (in milliseconds) of the timer flush.
+     */
+    public static final long DEFAULT_FLUSH_MILLIS = 5000;
+
+    private final Path path;
+
+    private final BufferedWriter writer;
+
+    private final int flushFlows;
+
+    /**
+     * Timer which flushes the output periodically.
+     */
+    private final ScheduledExecutorService flusher;
+
+    private int unflushed = 0;
+
+    private int written = 0;
+
+    private boolean closed = false;
+
+    public JsonLinesTaintFlowWriter(Path path) {
+        this(path, DEFAULT_FLUSH_FLOWS, DEFAULT_FLUSH_MILLIS);
+    }
+
+    /**
+     * @param path        the output file, which is created if absent
+     * @param flushFlows  the number of flows written between two flushes
+     * @param flushMillis the period (in milliseconds) of the timer flush
+     * @throws AnalysisException if failed to open the output file
+     */
+    public JsonLinesTaintFlowWriter(Path path, int flushFlows, long flushMillis) {
+        this.path = path;
+        this.flushFlows = flushFlows;
+        try {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to open taint flow output " + path, e);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "taint-flow-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushByTimer,
+                flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        logger.info("Writing taint flows to {} ...", path);
+    }
+
+    @Override
+    public synchronized void onTaintFlow(TaintFlow taintFlow) {
+        try {
+            writer.write(toJson(taintFlow));
+            writer.newLine();
+            ++written;
+            if (++unflushed >= flushFlows) {
+                writer.flush();
+                unflushed = 0;
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write taint flow to " + path, e);
+        }
+    }
+
+    /**
+     * Flushes the flows written since the last flush, which is called
+     * by the timer. The errors are logged, as the timer cannot throw them
+     * to the analysis.
+     */
+    private synchronized void flushByTimer() {
+        if (closed || unflushed == 0) {
+            return;
+        }
+        try {
+            writer.flush();
+            unflushed = 0;
+        } catch (IOException e) {
+            logger.warn("Failed to flush taint flow output {}", path, e);
+        }
+    }
+
+    @Override
+    public void onFinish() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to close taint flow output " + path, e);
+        }
+        logger.info("{} taint flow(s) written to {}", written, path);
+    }
+
+    /**
+     * Stops the timer and closes the output. This method has no effect
+     * if the writer has been closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            flusher.shutdownNow();
+            writer.close();
+        }
+    }
+
+    private static String toJson(TaintFlow taintFlow) {
+        return "{\"source\":" + quote(CallGraphs.toString(taintFlow.sourceCall())) +
+                ",\"sink\":" + quote(CallGraphs.toString(taintFlow.sinkCall())) +
+                ",\"index\":" + taintFlow.index() + "}";
+    }
+
+    /**
+     * @return given string as a quoted and escaped JSON string.
+     */
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -25,14 +25,47 @@ package pascal.taie.analysis.pta.plugin.taint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.Timer;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 public class TaintAnalysiss {
 
@@ -40,6 +73,17 @@ public class TaintAnalysiss {
 
     private final TaintManager manager;
 
+    /**
+     * Rule packs given by option "taint-config", which is either a path
+     * or a list (or comma-separated string) of paths to config files.
+     */
+    private final List<RulePack> packs;
+
+    private final Map<String, RulePack> name2Pack = Maps.newMap();
+
+    /**
+     * Merged configuration of all rule packs.
+     */
     private final TaintConfig config;
 
     private final Solver solver;
@@ -48,30 +92,743 @@ public class TaintAnalysiss {
 
     private final Context emptyContext;
 
+    /**
+     * Whether taint objects are given heap contexts by the context
+     * selector, which is enabled by option "taint-heap-context"
+     * (value "selector"). By default, taint objects are given the empty
+     * heap context, so that they are not multiplied by heap contexts.
+     */
+    private final boolean taintHeapContext;
+
+    /**
+     * Set of context-sensitive taint objects added to points-to sets.
+     */
+    private final Set<CSObj> csTaints = Sets.newSet();
+
+    private final Timer timer = new Timer("Taint analysis");
+
+    /**
+     * Taint transfer edges induced by the calls to transfer methods.
+     */
+    private final TaintTransferGraph transferGraph = new TaintTransferGraph();
+
+    /**
+     * Number of taint objects transferred along transfer edges.
+     */
+    private long transferredTaints = 0;
+
+    /**
+     * Taint-only propagation layer, which is enabled by option
+     * "taint-overlay". If it is null, taint objects are propagated
+     * through the points-to sets.
+     */
+    private final TaintOverlay overlay;
+
+    /**
+     * Listeners which are notified of each taint flow once it is found.
+     */
+    private final List<TaintFlowListener> listeners = new ArrayList<>();
+
+    /**
+     * Taint flows which have been reported to the listeners.
+     */
+    private final Set<TaintFlow> reportedFlows = Sets.newSet();
+
+    /**
+     * Map from the argument variables of sink calls to the sink calls
+     * and the indexes of the arguments.
+     */
+    private final MultiMap<Pointer, Pair<Invoke, Sink>> sinkArgs =
+            Maps.newMultiMap();
+
+    /**
+     * Map from a rule pack to its taint flows which have been found.
+     */
+    private final MultiMap<String, TaintFlow> packFlows = Maps.newMultiMap();
+
+    /**
+     * Whether sanitizers in the config are enabled, which is given by
+     * option "taint-sanitizers" (true by default). Disabling them gives
+     * the baseline numbers of taint propagation.
+     */
+    private final boolean sanitizersEnabled;
+
+    /**
+     * PFG edges (source -> target) through which taint objects
+     * cannot flow, i.e., the edges of sanitized variables at the calls
+     * to sanitizer methods, mapped to the rule packs which sanitize them.
+     */
+    private final TwoKeyMap<Pointer, Pointer, Set<String>> sanitizedEdges =
+            Maps.newTwoKeyMap();
+
+    /**
+     * Number of taint entries cut by sanitizers.
+     */
+    private long sanitizedTaints = 0;
+
+    /**
+     * Provenance of taint objects for witness paths, which is enabled by
+     * option "taint-witness" (true, or the maximum number of records).
+     * If it is null, the provenance is not recorded.
+     */
+    private final TaintWitness witness;
+
+    /**
+     * Map from a taint flow to the (sink argument, taint object) pairs
+     * which induce it, the witness path of the taint flow ends at one
+     * of these pairs.
+     */
+    private final MultiMap<TaintFlow, Pair<Pointer, Obj>> witnessEnds =
+            Maps.newMultiMap();
+
     public TaintAnalysiss(Solver solver) {
-        manager = new TaintManager();
         this.solver = solver;
         csManager = solver.getCSManager();
         emptyContext = solver.getContextSelector().getEmptyContext();
-        config = TaintConfig.readConfig(
-                solver.getOptions().getString("taint-config"),
-                World.get().getClassHierarchy(),
-                World.get().getTypeSystem());
-        logger.info(config);
+        packs = readRulePacks(solver.getOptions().get("taint-config"));
+        packs.forEach(pack -> name2Pack.put(pack.name(), pack));
+        // option "taint-merge" (value "source-method") merges taint objects
+        // by source method instead of by source call, and then the flows of
+        // a merged taint object are reported for all calls to its method
+        manager = new TaintManager(packs.stream().map(RulePack::name).toList(),
+                "source-method".equals(solver.getOptions().getString("taint-merge")));
+        taintHeapContext = "selector".equals(
+                solver.getOptions().getString("taint-heap-context"));
+        config = packs.size() == 1 ? packs.get(0).config() :
+                TaintConfig.merge(packs.stream().map(RulePack::config).toList());
+        packs.forEach(pack -> logger.info("Rule pack {}: {}", pack, pack.config()));
+        sanitizersEnabled = solver.getOptions()
+                .getBooleanOrDefault("taint-sanitizers", true);
+        overlay = solver.getOptions().getBooleanOrDefault("taint-overlay", false) ?
+                new TaintOverlay(solver::getPFGSuccsOf, this::onNewTaints,
+                        this::filterTaints) : null;
+        if (overlay != null && taintHeapContext) {
+            // taint objects in the overlay are identified by ids only
+            throw new ConfigException("taint-heap-context:selector is not" +
+                    " supported with taint-overlay, where taint objects" +
+                    " have no heap contexts");
+        }
+        Object witnessOpt = solver.getOptions().get("taint-witness");
+        if (witnessOpt instanceof Integer limit) {
+            witness = new TaintWitness(limit);
+        } else if (Boolean.TRUE.equals(witnessOpt)) {
+            witness = new TaintWitness(TaintWitness.DEFAULT_LIMIT);
+        } else {
+            witness = null;
+        }
+        String output = solver.getOptions().getString("taint-flow-output");
+        if (output != null) {
+            addTaintFlowListener(new JsonLinesTaintFlowWriter(Path.of(output)));
+        }
+        timer.start();
+    }
+
+    /**
+     * Reads the rule packs from given config files. The name of each
+     * rule pack is the name of its config file without extension.
+     */
+    private List<RulePack> readRulePacks(Object value) {
+        List<String> paths;
+        if (value instanceof Collection<?> c) {
+            paths = c.stream().map(Object::toString).toList();
+        } else {
+            paths = List.of(value.toString().split(","));
+        }
+        // option "taint-config-cache" enables the compiled config cache,
+        // which is stored in directory given by option "taint-config-cache-dir"
+        boolean useCache = solver.getOptions()
+                .getBooleanOrDefault("taint-config-cache", false);
+        String cacheDir = solver.getOptions().getString("taint-config-cache-dir");
+        List<RulePack> packs = new ArrayList<>(paths.size());
+        Set<String> names = Sets.newSet();
+        for (String path : paths) {
+            path = path.strip();
+            TaintConfig config = useCache ?
+                    TaintConfigCache.readConfig(path, Path.of(cacheDir != null ?
+                                    cacheDir : TaintConfigCache.DEFAULT_CACHE_DIR),
+                            World.get().getClassHierarchy(),
+                            World.get().getTypeSystem()) :
+                    TaintConfig.readConfig(path,
+                            World.get().getClassHierarchy(),
+                            World.get().getTypeSystem());
+            String name = Path.of(path).getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            if (dot > 0) {
+                name = name.substring(0, dot);
+            }
+            if (!names.add(name)) { // distinguish the files of the same name
+                name = name + "#" + packs.size();
+                names.add(name);
+            }
+            packs.add(new RulePack(name, config));
+        }
+        return Collections.unmodifiableList(packs);
+    }
+
+    /**
+     * Adds a listener which is notified of each taint flow once it is found.
+     */
+    public void addTaintFlowListener(TaintFlowListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Notifies taint analysis of a new PFG edge (source -> target).
+     * The solver calls this method for every new PFG edge,
+     * so that the taint overlay (if enabled) reuses the edges.
+     */
+    public void onNewPFGEdge(Pointer source, Pointer target) {
+        if (overlay != null) {
+            overlay.onNewPFGEdge(source, target);
+        }
+    }
+
+    /**
+     * Notifies taint analysis of a new call edge. The solver calls
+     * this method for every new call edge before adding the PFG edges
+     * of the call. The taint objects of source calls are made here,
+     * and the taint flows to sink calls are reported as soon as they are found.
+     */
+    public void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        if (sanitizersEnabled) {
+            addSanitizedEdges(edge);
+        }
+        addSourceTaints(edge);
+        addTransferEdges(edge);
+        if (listeners.isEmpty() && witness == null && packs.size() == 1) {
+            return;
+        }
+        CSCallSite csCallSite = edge.getCallSite();
+        Invoke sinkCall = csCallSite.getCallSite();
+        for (Sink sink : config.getSinksOf(edge.getCallee().getMethod())) {
+            CSVar arg = csManager.getCSVar(csCallSite.getContext(),
+                    sinkCall.getInvokeExp().getArg(sink.index()));
+            Pair<Invoke, Sink> sinkArg = new Pair<>(sinkCall, sink);
+            if (sinkArgs.put(arg, sinkArg)) {
+                getTaints(arg).forEach(taint -> reportTaintFlow(arg, taint, sinkArg));
+            }
+        }
+    }
+
+    /**
+     * Adds the taint objects of the source methods called by given edge
+     * to the result of the call site.
+     */
+    private void addSourceTaints(Edge<CSCallSite, CSMethod> edge) {
+        JMethod callee = edge.getCallee().getMethod();
+        Invoke callSite = edge.getCallSite().getCallSite();
+        Var result = callSite.getResult();
+        if (result != null && !config.getSourcesOf(callee).isEmpty()) {
+            CSVar csResult = csManager.getCSVar(
+                    edge.getCallSite().getContext(), result);
+            List<Obj> taints = makeTaints(callSite, callee);
+            if (witness != null) {
+                taints.forEach(taint -> witness.onSource(csResult, taint));
+            }
+            addTaints(csResult, taints);
+        }
     }
 
-    // TODO - finish me
+    /**
+     * Adds the taint transfer edges induced by the call of given edge,
+     * and transfers the taint objects which have reached the "from"
+     * variables of the new edges.
+     */
+    private void addTransferEdges(Edge<CSCallSite, CSMethod> edge) {
+        JMethod callee = edge.getCallee().getMethod();
+        if (config.getTransfersOf(callee).isEmpty()) {
+            return;
+        }
+        Context context = edge.getCallSite().getContext();
+        Invoke callSite = edge.getCallSite().getCallSite();
+        for (RulePack pack : packs) {
+            for (TaintTransfer transfer : pack.config().getTransfersOf(callee)) {
+                if (isSanitized(callee, transfer.from(), pack.name())
+                        || isSanitized(callee, transfer.to(), pack.name())) {
+                    continue;
+                }
+                Var from = TaintTransfer.getVar(callSite, transfer.from());
+                Var to = TaintTransfer.getVar(callSite, transfer.to());
+                if (from == null || to == null) {
+                    continue;
+                }
+                CSVar csFrom = csManager.getCSVar(context, from);
+                CSVar csTo = csManager.getCSVar(context, to);
+                if (transferGraph.addEdge(csFrom, csTo, transfer.type(), pack.name())) {
+                    transfer(csFrom, getTaints(csFrom),
+                            new TaintTransferGraph.Edge(csTo, transfer.type(), pack.name()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Transfers given taint objects (i.e., the delta of taint objects of
+     * a variable) along the outgoing transfer edges of source. Each edge
+     * turns the delta into a delta of transferred taint objects in one pass,
+     * which is added to the target as a single work-list entry.
+     */
+    private void transfer(Pointer source, Collection<Obj> taints) {
+        for (TaintTransferGraph.Edge edge : transferGraph.getOutEdgesOf(source)) {
+            transfer(source, taints, edge);
+        }
+    }
+
+    private void transfer(Pointer source, Collection<Obj> taints,
+                          TaintTransferGraph.Edge edge) {
+        List<Obj> transferred = new ArrayList<>(taints.size());
+        for (Obj taint : taints) {
+            if (manager.getRulePack(taint).equals(edge.pack())) {
+                Obj newTaint = makeTransferredTaint(taint, edge.type());
+                if (witness != null) {
+                    // links the witness of the new taint to the taint
+                    // it comes from, before the new taint flows further
+                    witness.onTransfer(source, taint, edge.target(), newTaint);
+                }
+                transferred.add(newTaint);
+            }
+        }
+        if (!transferred.isEmpty()) {
+            transferredTaints += transferred.size();
+            addTaints(edge.target(), transferred);
+        }
+    }
+
+    /**
+     * Adds the PFG edges of sanitized variables at the call of given edge,
+     * i.e., argument -> parameter, base -> this, or return -> result.
+     */
+    private void addSanitizedEdges(Edge<CSCallSite, CSMethod> edge) {
+        CSMethod csCallee = edge.getCallee();
+        if (config.getSanitizersOf(csCallee.getMethod()).isEmpty()) {
+            return;
+        }
+        Context callerCtx = edge.getCallSite().getContext();
+        Context calleeCtx = csCallee.getContext();
+        Invoke callSite = edge.getCallSite().getCallSite();
+        IR ir = csCallee.getMethod().getIR();
+        for (RulePack pack : packs) {
+            for (Sanitizer sanitizer :
+                    pack.config().getSanitizersOf(csCallee.getMethod())) {
+                int index = sanitizer.index();
+                if (index == TaintTransfer.RESULT) {
+                    Var result = callSite.getResult();
+                    if (result != null) {
+                        CSVar csResult = csManager.getCSVar(callerCtx, result);
+                        ir.getReturnVars().forEach(ret -> addSanitizedEdge(
+                                csManager.getCSVar(calleeCtx, ret), csResult, pack));
+                    }
+                } else if (index == TaintTransfer.BASE) {
+                    if (callSite.getInvokeExp() instanceof InvokeInstanceExp instExp
+                            && ir.getThis() != null) {
+                        addSanitizedEdge(
+                                csManager.getCSVar(callerCtx, instExp.getBase()),
+                                csManager.getCSVar(calleeCtx, ir.getThis()), pack);
+                    }
+                } else {
+                    addSanitizedEdge(
+                            csManager.getCSVar(callerCtx,
+                                    callSite.getInvokeExp().getArg(index)),
+                            csManager.getCSVar(calleeCtx, ir.getParam(index)), pack);
+                }
+            }
+        }
+    }
+
+    private void addSanitizedEdge(Pointer source, Pointer target, RulePack pack) {
+        sanitizedEdges.computeIfAbsent(source, target, (s, t) -> Sets.newHybridSet())
+                .add(pack.name());
+    }
+
+    /**
+     * @return true if the variable of given index at the calls to callee
+     * is sanitized for given rule pack, i.e., the taint transfers
+     * from/to it should be ignored for the taint objects of the rule pack.
+     */
+    boolean isSanitized(JMethod callee, int index, String pack) {
+        if (!sanitizersEnabled) {
+            return false;
+        }
+        for (Sanitizer sanitizer : name2Pack.get(pack).config().getSanitizersOf(callee)) {
+            if (sanitizer.index() == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the taint objects from pointsToSet if it flows along
+     * a sanitized PFG edge (source -> target). The solver must apply this
+     * method to the objects propagated along each PFG edge.
+     *
+     * @return pointsToSet itself if no taint objects are removed,
+     * otherwise a new set.
+     */
+    public PointsToSet sanitize(Pointer source, Pointer target,
+                                PointsToSet pointsToSet) {
+        Set<String> sanitizedPacks = sanitizedEdges.get(source, target);
+        if (sanitizedPacks == null) {
+            return pointsToSet;
+        }
+        PointsToSet result = PointsToSetFactory.make();
+        pointsToSet.forEach(obj -> {
+            if (manager.isTaint(obj.getObject()) && sanitizedPacks.contains(
+                    manager.getRulePack(obj.getObject()))) {
+                ++sanitizedTaints;
+            } else {
+                result.addObject(obj);
+            }
+        });
+        return result.size() == pointsToSet.size() ? pointsToSet : result;
+    }
+
+    /**
+     * Filters the taints flowing along PFG edge (source -> target)
+     * in taint overlay, in the same way as the solver filters the taint
+     * objects in points-to sets, i.e., by the type filter of the edge
+     * and by {@link #sanitize}.
+     *
+     * @return taintIds itself if no taints are dropped, otherwise a new bitset.
+     */
+    private BitSet filterTaints(Pointer source, Pointer target, BitSet taintIds) {
+        Set<String> sanitizedPacks = sanitizedEdges.get(source, target);
+        if (sanitizedPacks == null && !solver.hasTypeFilter(source, target)) {
+            return taintIds;
+        }
+        BitSet result = (BitSet) taintIds.clone();
+        taintIds.stream().forEach(id -> {
+            Obj taint = manager.getTaint(id);
+            if (sanitizedPacks != null &&
+                    sanitizedPacks.contains(manager.getRulePack(taint))) {
+                ++sanitizedTaints;
+                result.clear(id);
+            } else if (!solver.canFlow(source, target, taint.getType())) {
+                result.clear(id);
+            }
+        });
+        return result.cardinality() == taintIds.cardinality() ? taintIds : result;
+    }
+
+    /**
+     * Notifies taint analysis of the new objects (difference set)
+     * of the points-to set of csVar. The solver must call this method
+     * whenever the points-to set of a variable changes, so that the taint
+     * flows to sink calls are reported as soon as they are found.
+     */
+    public void onNewPointsToSet(CSVar csVar, PointsToSet delta) {
+        if (overlay != null) {
+            // taints are reported by onNewTaints()
+            return;
+        }
+        Set<Pair<Invoke, Sink>> args = sinkArgs.get(csVar);
+        Set<TaintTransferGraph.Edge> transferEdges = transferGraph.getOutEdgesOf(csVar);
+        if (args.isEmpty() && transferEdges.isEmpty()) {
+            return;
+        }
+        List<Obj> taints = delta.objects()
+                .map(CSObj::getObject)
+                .filter(manager::isTaint)
+                .toList();
+        if (!taints.isEmpty()) {
+            taints.forEach(taint -> args.forEach(
+                    sinkArg -> reportTaintFlow(csVar, taint, sinkArg)));
+            transferEdges.forEach(edge -> transfer(csVar, taints, edge));
+        }
+    }
+
+    /**
+     * Notifies taint analysis that pointsToSet is propagated along
+     * PFG edge (source -> target). The solver calls this method for
+     * every propagation, so that the provenance of taint objects is
+     * recorded if witness paths are enabled.
+     */
+    public void onPropagate(Pointer source, Pointer target, PointsToSet pointsToSet) {
+        if (witness != null && overlay == null) {
+            pointsToSet.objects()
+                    .map(CSObj::getObject)
+                    .filter(manager::isTaint)
+                    .forEach(taint -> witness.onFlow(source, target, taint));
+        }
+    }
+
+    /**
+     * Records and reports the new taints (given by ids) of pointer
+     * in taint overlay, which flow from source (null if absent).
+     * The taints without source are made by source calls or transfers,
+     * whose witnesses have been recorded before they are added.
+     */
+    private void onNewTaints(Pointer source, Pointer pointer, BitSet taintIds) {
+        if (witness != null && source != null) {
+            taintIds.stream().mapToObj(manager::getTaint)
+                    .forEach(taint -> witness.onFlow(source, pointer, taint));
+        }
+        Set<Pair<Invoke, Sink>> args = sinkArgs.get(pointer);
+        if (!args.isEmpty()) {
+            taintIds.stream().mapToObj(manager::getTaint)
+                    .forEach(taint -> args.forEach(
+                            sinkArg -> reportTaintFlow(pointer, taint, sinkArg)));
+        }
+        if (!transferGraph.getOutEdgesOf(pointer).isEmpty()) {
+            transfer(pointer, taintIds.stream()
+                    .mapToObj(manager::getTaint)
+                    .toList());
+        }
+        if (pointer instanceof CSVar csVar && isBase(csVar.getVar())) {
+            // taints act as base objects as they do in points-to sets,
+            // e.g., instance calls are resolved on them
+            PointsToSet taints = PointsToSetFactory.make();
+            taintIds.stream().forEach(id -> taints.addObject(
+                    csManager.getCSObj(emptyContext, manager.getTaint(id))));
+            solver.processObjects(csVar, taints, (thisVar, recvObj) -> {
+                BitSet bits = new BitSet();
+                bits.set(manager.getId(recvObj.getObject()));
+                overlay.addTaints(thisVar, bits);
+            });
+        }
+    }
+
+    /**
+     * @return true if given variable is the base of any field or array
+     * access or instance call.
+     */
+    private static boolean isBase(Var var) {
+        return !var.getInvokes().isEmpty() ||
+                !var.getStoreFields().isEmpty() ||
+                !var.getLoadFields().isEmpty() ||
+                !var.getStoreArrays().isEmpty() ||
+                !var.getLoadArrays().isEmpty();
+    }
+
+    private void reportTaintFlow(Pointer arg, Obj taint,
+                                 Pair<Invoke, Sink> sinkArg) {
+        for (TaintFlow taintFlow : makeTaintFlows(
+                taint, sinkArg.first(), sinkArg.second())) {
+            if (witness != null) {
+                witnessEnds.put(taintFlow, new Pair<>(arg, taint));
+            }
+            reportTaintFlow(taintFlow);
+        }
+    }
+
+    /**
+     * Makes the taint flows from the source calls of taint
+     * (see {@link TaintManager#getSourceCalls(Obj)}) to given sink call,
+     * and records them for the rule pack of taint.
+     *
+     * @return the taint flows, or an empty list if the sink does not
+     * belong to the rule pack of taint.
+     */
+    private List<TaintFlow> makeTaintFlows(Obj taint, Invoke sinkCall, Sink sink) {
+        String pack = manager.getRulePack(taint);
+        if (!name2Pack.get(pack).config().getSinksOf(sink.method()).contains(sink)) {
+            return List.of();
+        }
+        List<TaintFlow> taintFlows = new ArrayList<>();
+        for (Invoke sourceCall : manager.getSourceCalls(taint)) {
+            TaintFlow taintFlow = new TaintFlow(sourceCall, sinkCall, sink.index());
+            packFlows.put(pack, taintFlow);
+            taintFlows.add(taintFlow);
+        }
+        return taintFlows;
+    }
+
+    /**
+     * Reports given taint flow to the listeners, if it has not been reported.
+     */
+    private void reportTaintFlow(TaintFlow taintFlow) {
+        if (reportedFlows.add(taintFlow)) {
+            listeners.forEach(listener -> listener.onTaintFlow(taintFlow));
+        }
+    }
+
+    /**
+     * Adds given taint objects to the points-to set of csVar as a single
+     * work-list entry, or to the taint overlay if it is enabled.
+     */
+    private void addTaints(CSVar csVar, Collection<Obj> taints) {
+        if (overlay != null) {
+            BitSet bits = new BitSet();
+            taints.forEach(taint -> bits.set(manager.getId(taint)));
+            overlay.addTaints(csVar, bits);
+        } else {
+            PointsToSet pts = PointsToSetFactory.make();
+            for (Obj taint : taints) {
+                CSObj csTaint = csManager.getCSObj(getHeapContext(csVar, taint), taint);
+                csTaints.add(csTaint);
+                pts.addObject(csTaint);
+            }
+            solver.addPointsTo(csVar, pts);
+        }
+    }
+
+    /**
+     * Makes the taint objects for a call to source method,
+     * one for each source (of each rule pack) of the method.
+     */
+    private List<Obj> makeTaints(Invoke sourceCall, JMethod source) {
+        List<Obj> taints = new ArrayList<>();
+        for (RulePack pack : packs) {
+            for (Source src : pack.config().getSourcesOf(source)) {
+                taints.add(manager.makeTaint(
+                        sourceCall, source, src.type(), pack.name()));
+            }
+        }
+        return taints;
+    }
+
+    /**
+     * Makes the taint object of given type transferred from taint,
+     * which has the same source call and rule pack as taint.
+     */
+    private Obj makeTransferredTaint(Obj taint, Type type) {
+        return manager.makeTaint(manager.getSourceCall(taint), type,
+                manager.getRulePack(taint));
+    }
+
+    /**
+     * @return the heap context of given taint object, which is added
+     * to the points-to set of csVar.
+     */
+    private Context getHeapContext(CSVar csVar, Obj taint) {
+        if (!taintHeapContext) {
+            return emptyContext;
+        }
+        CSMethod csMethod = csManager.getCSMethod(
+                csVar.getContext(), csVar.getVar().getMethod());
+        return solver.getContextSelector().selectHeapContext(csMethod, taint);
+    }
+
+    /**
+     * @return the taint objects pointed by given pointer, from either
+     * its points-to set or the taint overlay.
+     */
+    private Set<Obj> getTaints(Pointer pointer) {
+        if (overlay != null) {
+            return overlay.getTaints(pointer)
+                    .stream()
+                    .mapToObj(manager::getTaint)
+                    .collect(Collectors.toSet());
+        } else {
+            return pointer.getPointsToSet()
+                    .objects()
+                    .map(CSObj::getObject)
+                    .filter(manager::isTaint)
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Releases the resources held by the listeners, e.g., the output
+     * files of taint flows. The solver calls this method after solving,
+     * even if the analysis fails before {@link #onFinish()}.
+     */
+    public void close() {
+        for (TaintFlowListener listener : listeners) {
+            if (listener instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close {}", listener, e);
+                }
+            }
+        }
+    }
 
     public void onFinish() {
         Set<TaintFlow> taintFlows = collectTaintFlows();
+        timer.stop();
+        logger.info("Taint objects: {} source call(s), {} taint object(s){}," +
+                        " {} context-sensitive taint object(s) ({} heap contexts)",
+                manager.getNumberOfSourceCalls(), manager.getNumberOfTaints(),
+                manager.isMergedBySourceMethod() ? " merged by source method" : "",
+                csTaints.size(), taintHeapContext ? "selected" : "empty");
+        logger.info("Taint transfers: {} edge(s), {} taint object(s) transferred",
+                transferGraph.getNumberOfEdges(), transferredTaints);
+        logger.info(timer);
+        if (sanitizersEnabled) {
+            logger.info("Sanitizers: {} taint object(s), {} sanitized edge(s)," +
+                            " {} taint entries cut",
+                    manager.getNumberOfTaints(), sanitizedEdges.size(),
+                    sanitizedTaints);
+        } else {
+            logger.info("Sanitizers disabled: {} taint object(s)",
+                    manager.getNumberOfTaints());
+        }
+        if (overlay != null) {
+            logger.info("Taint overlay: {} taint object(s), {} tainted pointer(s)," +
+                            " {} taint entries, {} filtered on PFG edges",
+                    manager.getNumberOfTaints(), overlay.getNumberOfTaintedPointers(),
+                    overlay.getNumberOfTaintEntries(),
+                    overlay.getNumberOfFilteredTaints());
+        }
+        // reports the flows which were not found during solving
+        taintFlows.forEach(this::reportTaintFlow);
+        listeners.forEach(TaintFlowListener::onFinish);
         solver.getResult().storeResult(getClass().getName(), taintFlows);
+        if (packs.size() > 1) {
+            Map<String, Set<TaintFlow>> flowsByPack = new LinkedHashMap<>();
+            for (RulePack pack : packs) {
+                Set<TaintFlow> flows = new TreeSet<>(packFlows.get(pack.name()));
+                flowsByPack.put(pack.name(), Collections.unmodifiableSet(flows));
+                logger.info("Rule pack {}: {} taint flow(s)", pack, flows.size());
+            }
+            solver.getResult().storeResult(RulePack.class.getName(), flowsByPack);
+        }
+        if (witness != null) {
+            solver.getResult().storeResult(TaintWitness.class.getName(),
+                    extractWitnessPaths(taintFlows));
+        }
+    }
+
+    /**
+     * @return map from each taint flow to its shortest witness path
+     * among the recorded ones. The path starts from the result of
+     * source call, and goes through the taint transfers (if any)
+     * to the sink argument. The flows whose paths are unavailable
+     * are absent from the map.
+     */
+    private Map<TaintFlow, List<Pointer>> extractWitnessPaths(
+            Set<TaintFlow> taintFlows) {
+        Map<TaintFlow, List<Pointer>> paths = new TreeMap<>();
+        for (TaintFlow taintFlow : taintFlows) {
+            List<Pointer> shortest = null;
+            for (Pair<Pointer, Obj> end : witnessEnds.get(taintFlow)) {
+                List<Pointer> path = witness.getPath(end.first(), end.second());
+                if (path != null &&
+                        (shortest == null || path.size() < shortest.size())) {
+                    shortest = path;
+                }
+            }
+            if (shortest != null) {
+                paths.put(taintFlow, shortest);
+            }
+        }
+        logger.info("Taint witness: {} record(s), {} dropped, {}/{} path(s) extracted",
+                witness.getNumberOfRecords(), witness.getNumberOfDropped(),
+                paths.size(), taintFlows.size());
+        return paths;
     }
 
+    /**
+     * @return taint flows to the sink calls, collected from the taint
+     * objects which reach the sink arguments.
+     */
     private Set<TaintFlow> collectTaintFlows() {
         Set<TaintFlow> taintFlows = new TreeSet<>();
         PointerAnalysisResult result = solver.getResult();
-        // TODO - finish me
-        // You could query pointer analysis results you need via variable result.
+        result.getCSCallGraph().edges().forEach(edge -> {
+            JMethod callee = edge.getCallee().getMethod();
+            CSCallSite csCallSite = edge.getCallSite();
+            Invoke sinkCall = csCallSite.getCallSite();
+            for (Sink sink : config.getSinksOf(callee)) {
+                CSVar arg = csManager.getCSVar(csCallSite.getContext(),
+                        sinkCall.getInvokeExp().getArg(sink.index()));
+                for (Obj taint : getTaints(arg)) {
+                    taintFlows.addAll(makeTaintFlows(taint, sinkCall, sink));
+                }
+            }
+        });
         return taintFlows;
     }
 }
@@ -38,12 +38,17 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Configuration for taint analysis.
@@ -67,11 +72,56 @@ class TaintConfig {
      */
     private final Set<TaintTransfer> transfers;
 
-    private TaintConfig(Set<Source> sources, Set<Sink> sinks,
-                        Set<TaintTransfer> transfers) {
+    /**
+     * Set of sanitizers.
+     */
+    private final Set<Sanitizer> sanitizers;
+
+    /**
+     * Map from a method to the sources of it.
+     */
+    private final Map<JMethod, Set<Source>> method2Sources;
+
+    /**
+     * Map from a method to the sinks of it.
+     */
+    private final Map<JMethod, Set<Sink>> method2Sinks;
+
+    /**
+     * Map from a method to the taint transfers of it.
+     */
+    private final Map<JMethod, Set<TaintTransfer>> method2Transfers;
+
+    /**
+     * Map from a method to the sanitizers of it.
+     */
+    private final Map<JMethod, Set<Sanitizer>> method2Sanitizers;
+
+    TaintConfig(Set<Source> sources, Set<Sink> sinks,
+                Set<TaintTransfer> transfers, Set<Sanitizer> sanitizers) {
         this.sources = sources;
         this.sinks = sinks;
         this.transfers = transfers;
+        this.sanitizers = sanitizers;
+        this.method2Sources = index(sources, Source::method);
+        this.method2Sinks = index(sinks, Sink::method);
+        this.method2Transfers = index(transfers, TaintTransfer::method);
+        this.method2Sanitizers = index(sanitizers, Sanitizer::method);
+    }
+
+    /**
+     * Indexes given elements by their methods, so that the elements
+     * of each call can be looked up without scanning all elements.
+     *
+     * @return an immutable map from a method to its elements.
+     */
+    private static <T> Map<JMethod, Set<T>> index(
+            Set<T> elems, Function<T, JMethod> getMethod) {
+        MultiMap<JMethod, T> index = Maps.newMultiMap();
+        elems.forEach(e -> index.put(getMethod.apply(e), e));
+        Map<JMethod, Set<T>> result = Maps.newMap(index.keySet().size());
+        index.forEachSet((m, s) -> result.put(m, Set.copyOf(s)));
+        return Collections.unmodifiableMap(result);
     }
 
     /**
@@ -98,6 +148,29 @@ class TaintConfig {
         }
     }
 
+    /**
+     * Merges given configurations.
+     *
+     * @return a configuration which contains the sources, sinks,
+     * taint transfers and sanitizers of all given configurations.
+     */
+    static TaintConfig merge(Collection<TaintConfig> configs) {
+        Set<Source> sources = Sets.newSet();
+        Set<Sink> sinks = Sets.newSet();
+        Set<TaintTransfer> transfers = Sets.newSet();
+        Set<Sanitizer> sanitizers = Sets.newSet();
+        for (TaintConfig config : configs) {
+            sources.addAll(config.sources);
+            sinks.addAll(config.sinks);
+            transfers.addAll(config.transfers);
+            sanitizers.addAll(config.sanitizers);
+        }
+        return new TaintConfig(Collections.unmodifiableSet(sources),
+                Collections.unmodifiableSet(sinks),
+                Collections.unmodifiableSet(transfers),
+                Collections.unmodifiableSet(sanitizers));
+    }
+
     /**
      * @return sources in the configuration.
      */
@@ -119,6 +192,41 @@ class TaintConfig {
         return transfers;
     }
 
+    /**
+     * @return sanitizers in the configuration.
+     */
+    Set<Sanitizer> getSanitizers() {
+        return sanitizers;
+    }
+
+    /**
+     * @return sources of given method.
+     */
+    Set<Source> getSourcesOf(JMethod method) {
+        return method2Sources.getOrDefault(method, Set.of());
+    }
+
+    /**
+     * @return sinks of given method.
+     */
+    Set<Sink> getSinksOf(JMethod method) {
+        return method2Sinks.getOrDefault(method, Set.of());
+    }
+
+    /**
+     * @return taint transfers of given method.
+     */
+    Set<TaintTransfer> getTransfersOf(JMethod method) {
+        return method2Transfers.getOrDefault(method, Set.of());
+    }
+
+    /**
+     * @return sanitizers of given method.
+     */
+    Set<Sanitizer> getSanitizersOf(JMethod method) {
+        return method2Sanitizers.getOrDefault(method, Set.of());
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("TaintConfig:");
@@ -137,6 +245,11 @@ class TaintConfig {
             transfers.forEach(transfer ->
                     sb.append("  ").append(transfer).append("\n"));
         }
+        if (!sanitizers.isEmpty()) {
+            sb.append("\nsanitizers:\n");
+            sanitizers.forEach(sanitizer ->
+                    sb.append("  ").append(sanitizer).append("\n"));
+        }
         return sb.toString();
     }
 
@@ -162,7 +275,8 @@ class TaintConfig {
             Set<Source> sources = deserializeSources(node.get("sources"));
             Set<Sink> sinks = deserializeSinks(node.get("sinks"));
             Set<TaintTransfer> transfers = deserializeTransfers(node.get("transfers"));
-            return new TaintConfig(sources, sinks, transfers);
+            Set<Sanitizer> sanitizers = deserializeSanitizers(node.get("sanitizers"));
+            return new TaintConfig(sources, sinks, transfers, sanitizers);
         }
 
         /**
@@ -255,5 +369,34 @@ class TaintConfig {
                 return Set.of();
             }
         }
+
+        /**
+         * Deserializes a {@link JsonNode} (assume it is an {@link ArrayNode})
+         * to a set of {@link Sanitizer}.
+         *
+         * @param node the node to be deserialized
+         * @return set of deserialized {@link Sanitizer}
+         */
+        private Set<Sanitizer> deserializeSanitizers(JsonNode node) {
+            if (node instanceof ArrayNode arrayNode) {
+                Set<Sanitizer> sanitizers = Sets.newSet(arrayNode.size());
+                for (JsonNode elem : arrayNode) {
+                    String methodSig = elem.get("method").asText();
+                    JMethod method = hierarchy.getMethod(methodSig);
+                    if (method != null) {
+                        // if the method (given in config file) is absent in
+                        // the class hierarchy, just ignore it.
+                        int index = TaintTransfer.toInt(elem.get("index").asText());
+                        sanitizers.add(new Sanitizer(method, index));
+                    } else {
+                        logger.warn("Cannot find sanitizer method '{}'", methodSig);
+                    }
+                }
+                return Collections.unmodifiableSet(sanitizers);
+            } else {
+                // if node is not an instance of ArrayNode, just return an empty set.
+                return Set.of();
+            }
+        }
     }
 }
@@ -0,0 +1,420 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.Options;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Cache of compiled taint configurations. A compiled configuration
+ * is a binary file stored in a cache directory (by default
+ * {@link #DEFAULT_CACHE_DIR}, instead of next to the YAML config file,
+ * which may be in the source tree), which contains only the entries
+ * resolved in the class hierarchy. It is keyed by the hash of the
+ * YAML file plus the fingerprint of the class path, and it is reused
+ * (memory-mapped) only if both are unchanged.
+ * <p>
+ * Loading a compiled config skips YAML parsing and the lookups of the
+ * methods which are absent in the class hierarchy. The present methods
+ * are still resolved by their signatures via
+ * {@link ClassHierarchy#getMethod(String)}, once per distinct signature,
+ * as the resolved methods belong to the class hierarchy of each run.
+ * Thus the saving depends on the size of the config and on how many
+ * of its entries are absent; {@code TaintConfigCacheBenchmark}
+ * in src/jmh measures it for configs with many absent entries.
+ * <p>
+ * Binary format (all integers are big-endian):
+ * <pre>
+ * magic, version, key (32 bytes),
+ * string table: count, (length, UTF-8 bytes)*
+ * sources:   count, (method, type)*
+ * sinks:     count, (method, index)*
+ * transfers: count, (method, from, to, type)*
+ * sanitizers: count, (method, index)*
+ * </pre>
+ * where methods and types are indexes of the string table.
+ */
+final class TaintConfigCache {
+
+    private static final Logger logger = LogManager.getLogger(TaintConfigCache.class);
+
+    /**
+     * Suffix of the compiled config file.
+     */
+    static final String SUFFIX = ".bin";
+
+    /**
+     * Default directory of the compiled config files.
+     */
+    static final String DEFAULT_CACHE_DIR = "output/taint-config-cache";
+
+    private static final int MAGIC = 0x5441494E; // "TAIN"
+
+    private static final int VERSION = 2;
+
+    private static final int KEY_LENGTH = 32;
+
+    private TaintConfigCache() {
+    }
+
+    /**
+     * Reads a taint analysis configuration, from the compiled config file
+     * if it is up-to-date, otherwise from the YAML config file, and then
+     * compiles the config for later runs.
+     *
+     * @param path       the path to the YAML config file
+     * @param cacheDir   the directory of the compiled config files
+     * @param hierarchy  the class hierarchy
+     * @param typeSystem the type manager
+     * @return the TaintConfig object
+     * @throws ConfigException if failed to load the config file
+     */
+    static TaintConfig readConfig(String path, Path cacheDir,
+                                  ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        byte[] key = computeKey(Path.of(path));
+        Path compiled = getCompiledPath(Path.of(path), cacheDir);
+        if (Files.isRegularFile(compiled)) {
+            TaintConfig config = load(compiled, key, hierarchy, typeSystem);
+            if (config != null) {
+                logger.info("Loaded compiled taint config {}", compiled);
+                return config;
+            }
+        }
+        TaintConfig config = TaintConfig.readConfig(path, hierarchy, typeSystem);
+        try {
+            save(compiled, key, config);
+            logger.info("Compiled taint config to {}", compiled);
+        } catch (IOException e) {
+            // the cache is optional, thus failure of saving it is not fatal
+            logger.warn("Failed to write compiled taint config {}", compiled, e);
+        }
+        return config;
+    }
+
+    /**
+     * @return the path of the compiled config of given YAML file, whose
+     * name is the name of the YAML file plus a hash of its absolute path,
+     * so that the YAML files of the same name do not share a compiled config.
+     */
+    private static Path getCompiledPath(Path path, Path cacheDir) {
+        String absPath = path.toAbsolutePath().normalize().toString();
+        String hash = Integer.toHexString(absPath.hashCode());
+        return cacheDir.resolve(path.getFileName() + "-" + hash + SUFFIX);
+    }
+
+    /**
+     * @return the key of the compiled config, i.e., SHA-256 of
+     * the YAML config file plus the fingerprint of the class path.
+     * @throws ConfigException if failed to read the config file
+     *                         or the class path
+     */
+    private static byte[] computeKey(Path path) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(path));
+            digest.update(getClassPathFingerprint().getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        } catch (IOException e) {
+            throw new ConfigException("Failed to read taint analysis config file "
+                    + path + " or the class path", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new ConfigException("SHA-256 is unavailable", e);
+        }
+    }
+
+    /**
+     * @return the fingerprint of the analyzed program, which consists of
+     * the main class, Java version, and the path, size and last modified
+     * time of each class path element. For a directory element, which
+     * keeps its size and time when the class files inside it are edited
+     * in place, the sizes and times of all files under it are included.
+     */
+    private static String getClassPathFingerprint() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        Options options = World.get().getOptions();
+        sb.append(options.getMainClass()).append('|')
+                .append(options.getJavaVersion());
+        String classPath = options.getClassPath();
+        if (classPath != null) {
+            for (String elem : classPath.split(File.pathSeparator)) {
+                File file = new File(elem);
+                sb.append('|').append(file.getAbsolutePath());
+                if (file.isDirectory()) {
+                    appendDirectory(sb, file.toPath());
+                } else {
+                    sb.append(':').append(file.length())
+                            .append(':').append(file.lastModified());
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends the relative path, size and last modified time of
+     * each regular file under given directory, in path order.
+     */
+    private static void appendDirectory(StringBuilder sb, Path dir)
+            throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            Iterator<Path> it = files.filter(Files::isRegularFile)
+                    .sorted()
+                    .iterator();
+            while (it.hasNext()) {
+                Path file = it.next();
+                sb.append(';').append(dir.relativize(file))
+                        .append(':').append(Files.size(file))
+                        .append(':').append(Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+    }
+
+    /**
+     * Loads the compiled config.
+     *
+     * @return the loaded config, or null if the compiled config is
+     * outdated or broken, or some of its entries cannot be resolved.
+     */
+    private static TaintConfig load(Path compiled, byte[] key,
+                                    ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        try (FileChannel channel = FileChannel.open(compiled, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                return null;
+            }
+            byte[] storedKey = new byte[KEY_LENGTH];
+            buf.get(storedKey);
+            if (!Arrays.equals(storedKey, key)) {
+                return null;
+            }
+            String[] strings = new String[buf.getInt()];
+            for (int i = 0; i < strings.length; ++i) {
+                strings[i] = readString(buf);
+            }
+            Resolver resolver = new Resolver(strings, hierarchy, typeSystem);
+            int nSources = buf.getInt();
+            Set<Source> sources = Sets.newSet(nSources);
+            for (int i = 0; i < nSources; ++i) {
+                sources.add(new Source(resolver.getMethod(buf.getInt()),
+                        resolver.getType(buf.getInt())));
+            }
+            int nSinks = buf.getInt();
+            Set<Sink> sinks = Sets.newSet(nSinks);
+            for (int i = 0; i < nSinks; ++i) {
+                sinks.add(new Sink(resolver.getMethod(buf.getInt()), buf.getInt()));
+            }
+            int nTransfers = buf.getInt();
+            Set<TaintTransfer> transfers = Sets.newSet(nTransfers);
+            for (int i = 0; i < nTransfers; ++i) {
+                JMethod method = resolver.getMethod(buf.getInt());
+                int from = buf.getInt();
+                int to = buf.getInt();
+                transfers.add(new TaintTransfer(method, from, to,
+                        resolver.getType(buf.getInt())));
+            }
+            int nSanitizers = buf.getInt();
+            Set<Sanitizer> sanitizers = Sets.newSet(nSanitizers);
+            for (int i = 0; i < nSanitizers; ++i) {
+                sanitizers.add(new Sanitizer(resolver.getMethod(buf.getInt()),
+                        buf.getInt()));
+            }
+            if (resolver.hasUnresolved()) {
+                return null;
+            }
+            return new TaintConfig(Collections.unmodifiableSet(sources),
+                    Collections.unmodifiableSet(sinks),
+                    Collections.unmodifiableSet(transfers),
+                    Collections.unmodifiableSet(sanitizers));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load compiled taint config {}, ignore it",
+                    compiled, e);
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Saves given config as the compiled config.
+     */
+    private static void save(Path compiled, byte[] key, TaintConfig config)
+            throws IOException {
+        StringTable table = new StringTable();
+        config.getSources().forEach(s -> {
+            table.add(s.method().getSignature());
+            table.add(s.type().getName());
+        });
+        config.getSinks().forEach(s -> table.add(s.method().getSignature()));
+        config.getTransfers().forEach(t -> {
+            table.add(t.method().getSignature());
+            table.add(t.type().getName());
+        });
+        config.getSanitizers().forEach(s -> table.add(s.method().getSignature()));
+        Path dir = compiled.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        // write to a temporary file and then move it, so that
+        // concurrent runs never read a partially written file
+        Path tmp = Files.createTempFile(dir,
+                compiled.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(key);
+            out.writeInt(table.strings.size());
+            for (String s : table.strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(config.getSources().size());
+            for (Source source : config.getSources()) {
+                out.writeInt(table.indexOf(source.method().getSignature()));
+                out.writeInt(table.indexOf(source.type().getName()));
+            }
+            out.writeInt(config.getSinks().size());
+            for (Sink sink : config.getSinks()) {
+                out.writeInt(table.indexOf(sink.method().getSignature()));
+                out.writeInt(sink.index());
+            }
+            out.writeInt(config.getTransfers().size());
+            for (TaintTransfer transfer : config.getTransfers()) {
+                out.writeInt(table.indexOf(transfer.method().getSignature()));
+                out.writeInt(transfer.from());
+                out.writeInt(transfer.to());
+                out.writeInt(table.indexOf(transfer.type().getName()));
+            }
+            out.writeInt(config.getSanitizers().size());
+            for (Sanitizer sanitizer : config.getSanitizers()) {
+                out.writeInt(table.indexOf(sanitizer.method().getSignature()));
+                out.writeInt(sanitizer.index());
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, compiled, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Table of distinct strings, each string is referenced by its index.
+     */
+    private static class StringTable {
+
+        private final List<String> strings = new ArrayList<>();
+
+        private final Map<String, Integer> indexes = Maps.newMap();
+
+        private void add(String s) {
+            indexes.computeIfAbsent(s, k -> {
+                strings.add(k);
+                return strings.size() - 1;
+            });
+        }
+
+        private int indexOf(String s) {
+            return indexes.get(s);
+        }
+    }
+
+    /**
+     * Resolves the methods and types in the string table on demand.
+     * Each string is resolved at most once.
+     */
+    private static class Resolver {
+
+        private final String[] strings;
+
+        private final ClassHierarchy hierarchy;
+
+        private final TypeSystem typeSystem;
+
+        private final Map<Integer, JMethod> methods = Maps.newMap();
+
+        private final Map<Integer, Type> types = Maps.newMap();
+
+        private boolean unresolved = false;
+
+        private Resolver(String[] strings, ClassHierarchy hierarchy,
+                         TypeSystem typeSystem) {
+            this.strings = strings;
+            this.hierarchy = hierarchy;
+            this.typeSystem = typeSystem;
+        }
+
+        private JMethod getMethod(int index) {
+            JMethod method = methods.computeIfAbsent(index,
+                    i -> hierarchy.getMethod(strings[i]));
+            if (method == null) {
+                unresolved = true;
+            }
+            return method;
+        }
+
+        private Type getType(int index) {
+            return types.computeIfAbsent(index,
+                    i -> typeSystem.getType(strings[i]));
+        }
+
+        private boolean hasUnresolved() {
+            return unresolved;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+/**
+ * Listener of taint flows, which is notified of each taint flow
+ * as soon as taint analysis discovers it, i.e., during pointer analysis,
+ * instead of after the solver converges.
+ * Each taint flow is notified at most once.
+ */
+public interface TaintFlowListener {
+
+    /**
+     * Invoked when a new taint flow is discovered.
+     */
+    void onTaintFlow(TaintFlow taintFlow);
+
+    /**
+     * Invoked when taint analysis finishes. No taint flow
+     * is notified after this call.
+     */
+    default void onFinish() {
+    }
+}
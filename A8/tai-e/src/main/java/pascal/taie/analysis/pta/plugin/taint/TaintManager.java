@@ -25,11 +25,19 @@ package pascal.taie.analysis.pta.plugin.taint;
 import pascal.taie.analysis.pta.core.heap.MockObj;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Manages taint objects.
  */
@@ -37,18 +45,185 @@ class TaintManager {
 
     private static final String TAINT_DESC = "TaintObj";
 
-    private final TwoKeyMap<Invoke, Type, Obj> taints = Maps.newTwoKeyMap();
+    /**
+     * Name of the rule pack when only one rule pack is given.
+     */
+    static final String DEFAULT_PACK = "default";
+
+    /**
+     * Map from a rule pack to its taint objects.
+     */
+    private final Map<String, TwoKeyMap<Invoke, Type, Obj>> taints = Maps.newMap();
+
+    /**
+     * Map from the description of taint objects to their rule packs.
+     */
+    private final Map<String, String> desc2Pack = Maps.newMap();
+
+    /**
+     * Map from a rule pack to the description of its taint objects.
+     */
+    private final Map<String, String> pack2Desc = Maps.newMap();
+
+    /**
+     * The rule pack of the taint objects made without given rule pack.
+     */
+    private final String defaultPack;
 
     /**
-     * Makes a taint object for given source and type.
+     * Map from a source method to its representative source call,
+     * which is used when the taint objects are merged by source method.
+     * If it is null, the taint objects are distinguished by source call.
+     */
+    private final Map<JMethod, Invoke> representatives;
+
+    /**
+     * Map from a representative source call to all source calls
+     * merged into it, including itself.
+     */
+    private final MultiMap<Invoke, Invoke> mergedCalls = Maps.newMultiMap();
+
+    /**
+     * Set of the source calls given to {@link #makeTaint(Invoke, JMethod, Type, String)}.
+     */
+    private final Set<Invoke> sourceCalls = Sets.newSet();
+
+    /**
+     * List of all taint objects, the index of each taint object
+     * in this list is its id.
+     */
+    private final List<Obj> taintList = new ArrayList<>();
+
+    /**
+     * Map from a taint object to its id.
+     */
+    private final Map<Obj, Integer> taintIds = Maps.newMap();
+
+    TaintManager() {
+        this(List.of(DEFAULT_PACK), false);
+    }
+
+    /**
+     * @param packs                names of the rule packs. If there are
+     *                             multiple rule packs, the taint objects of
+     *                             different rule packs are distinguished
+     *                             by their descriptions.
+     * @param mergeBySourceMethod  if true, the taint objects of all calls to
+     *                             the same source method are merged, i.e.,
+     *                             represented by the taint objects of the
+     *                             first call to the method, and the taint
+     *                             flows of such objects are reported for
+     *                             all calls to the method
+     *                             (see {@link #getSourceCalls(Obj)}).
+     */
+    TaintManager(List<String> packs, boolean mergeBySourceMethod) {
+        representatives = mergeBySourceMethod ? Maps.newMap() : null;
+        for (String pack : packs) {
+            String desc = packs.size() == 1 ? TAINT_DESC : TAINT_DESC + "/" + pack;
+            desc2Pack.put(desc, pack);
+            pack2Desc.put(pack, desc);
+        }
+        defaultPack = packs.get(0);
+    }
+
+    /**
+     * Makes a taint object for given source and type,
+     * of the default (i.e., first) rule pack.
      *
      * @param source invocation to the source method, i.e., source call
      * @param type   type of the taint object
      * @return the taint object for given source and type.
      */
     Obj makeTaint(Invoke source, Type type) {
-        return taints.computeIfAbsent(source, type,
-                (s, t) -> new MockObj(TAINT_DESC, s, t));
+        return makeTaint(source, type, defaultPack);
+    }
+
+    /**
+     * Makes a taint object for given source, type and rule pack.
+     *
+     * @param source invocation to the source method, i.e., source call
+     * @param type   type of the taint object
+     * @param pack   name of the rule pack
+     * @return the taint object for given source, type and rule pack.
+     */
+    Obj makeTaint(Invoke source, Type type, String pack) {
+        String desc = pack2Desc.get(pack);
+        if (desc == null) {
+            throw new AnalysisException("Unknown rule pack: " + pack);
+        }
+        TwoKeyMap<Invoke, Type, Obj> packTaints =
+                taints.computeIfAbsent(pack, p -> Maps.newTwoKeyMap());
+        return packTaints.computeIfAbsent(source, type, (s, t) -> {
+            Obj taint = new MockObj(desc, s, t);
+            taintIds.put(taint, taintList.size());
+            taintList.add(taint);
+            return taint;
+        });
+    }
+
+    /**
+     * Makes a taint object for given source call of sourceMethod,
+     * type and rule pack. If the taint objects are merged by source method,
+     * then the taint object is made for the representative call of
+     * sourceMethod, i.e., the first source call given for the method.
+     *
+     * @param source       invocation to the source method, i.e., source call
+     * @param sourceMethod the source method called by source
+     * @param type         type of the taint object
+     * @param pack         name of the rule pack
+     * @return the taint object for given source, type and rule pack.
+     */
+    Obj makeTaint(Invoke source, JMethod sourceMethod, Type type, String pack) {
+        sourceCalls.add(source);
+        Invoke call = source;
+        if (representatives != null) {
+            call = representatives.computeIfAbsent(sourceMethod, m -> source);
+            mergedCalls.put(call, source);
+        }
+        return makeTaint(call, type, pack);
+    }
+
+    /**
+     * @return the number of distinct source calls for which
+     * taint objects are made.
+     */
+    int getNumberOfSourceCalls() {
+        return sourceCalls.size();
+    }
+
+    /**
+     * @return true if the taint objects are merged by source method.
+     */
+    boolean isMergedBySourceMethod() {
+        return representatives != null;
+    }
+
+    /**
+     * @return the id of given taint object. The ids of taint objects are
+     * consecutive integers starting from 0, thus they can be used as
+     * indexes of bitsets.
+     * @throws AnalysisException if given object is not a taint object.
+     */
+    int getId(Obj taint) {
+        Integer id = taintIds.get(taint);
+        if (id == null) {
+            throw new AnalysisException(taint + " is not a taint object");
+        }
+        return id;
+    }
+
+    /**
+     * @return the taint object of given id.
+     */
+    Obj getTaint(int id) {
+        return taintList.get(id);
+    }
+
+    /**
+     * @return the number of taint objects.
+     */
+    int getNumberOfTaints() {
+        return taintList.size();
     }
 
     /**
@@ -56,7 +231,18 @@ class TaintManager {
      */
     boolean isTaint(Obj obj) {
         return obj instanceof MockObj &&
-                ((MockObj) obj).getDescription().equals(TAINT_DESC);
+                desc2Pack.containsKey(((MockObj) obj).getDescription());
+    }
+
+    /**
+     * @return the name of rule pack of given taint object.
+     * @throws AnalysisException if given object is not a taint object.
+     */
+    String getRulePack(Obj obj) {
+        if (isTaint(obj)) {
+            return desc2Pack.get(((MockObj) obj).getDescription());
+        }
+        throw new AnalysisException(obj + " is not a taint object");
     }
 
     /**
@@ -69,4 +255,18 @@ class TaintManager {
         }
         throw new AnalysisException(obj + " is not a taint object");
     }
+
+    /**
+     * @return the source calls which given taint object represents, i.e.,
+     * its source call, or all the calls merged into its source call if
+     * the taint objects are merged by source method. As merged taint
+     * objects do not tell which of the calls reach a sink, the taint
+     * flows of them are reported for all the calls.
+     * @throws AnalysisException if given object is not a taint object.
+     */
+    Set<Invoke> getSourceCalls(Obj obj) {
+        Invoke sourceCall = getSourceCall(obj);
+        Set<Invoke> calls = mergedCalls.get(sourceCall);
+        return calls.isEmpty() ? Set.of(sourceCall) : calls;
+    }
 }
@@ -0,0 +1,271 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Taint-only propagation layer over the pointer flow graph.
+ * Instead of flowing taint objects through the points-to sets,
+ * this overlay maps each pointer to a bitset of the ids of its taint
+ * objects (see {@link TaintManager#getId}), and propagates the bitsets
+ * along the PFG edges built by pointer analysis. Thus, the points-to sets
+ * (and the statistics of pointer analysis) are free of taint objects.
+ * The taints flowing along each edge are filtered by an {@link EdgeFilter},
+ * which applies the type filter of the edge and the sanitizers,
+ * as pointer analysis does to the taint objects in points-to sets.
+ * <p>
+ * Taint objects in this overlay also act as base objects: the consumer
+ * of new taints passes them to the solver, which processes the field
+ * and array accesses and resolves the instance calls on them.
+ * The consumer may thus add PFG edges and taints while this overlay is
+ * propagating, and these changes are handled by the ongoing propagation.
+ */
+class TaintOverlay {
+
+    /**
+     * Map from a pointer to the ids of taint objects it may point to.
+     */
+    private final Map<Pointer, BitSet> taints = Maps.newMap();
+
+    /**
+     * Function that returns the PFG successors of a pointer.
+     */
+    private final Function<Pointer, Set<Pointer>> succs;
+
+    /**
+     * Consumer of the new taints of each pointer, may be null.
+     */
+    private final NewTaintsConsumer newTaintsConsumer;
+
+    /**
+     * Filter of the taints flowing along PFG edges, may be null.
+     */
+    private final EdgeFilter edgeFilter;
+
+    private final Queue<Pointer> workList = new ArrayDeque<>();
+
+    /**
+     * Whether {@link #propagate()} is running. The taints added during
+     * the propagation are left in {@link #workList} for it.
+     */
+    private boolean propagating = false;
+
+    /**
+     * Number of taint entries dropped by {@link #edgeFilter}.
+     */
+    private long filteredTaints = 0;
+
+    /**
+     * @param succs             the function that returns the successors of
+     *                          a pointer in the pointer flow graph.
+     * @param newTaintsConsumer the consumer which is notified of
+     *                          the new taints (difference set) of a pointer
+     *                          whenever they are added, may be null.
+     * @param edgeFilter        the filter of the taints flowing along
+     *                          PFG edges, may be null.
+     */
+    TaintOverlay(Function<Pointer, Set<Pointer>> succs,
+                 NewTaintsConsumer newTaintsConsumer,
+                 EdgeFilter edgeFilter) {
+        this.succs = succs;
+        this.newTaintsConsumer = newTaintsConsumer;
+        this.edgeFilter = edgeFilter;
+    }
+
+    /**
+     * @return ids of the taint objects pointed by given pointer.
+     * The returned bitset must not be modified.
+     */
+    BitSet getTaints(Pointer pointer) {
+        BitSet bits = taints.get(pointer);
+        return bits != null ? bits : new BitSet(0);
+    }
+
+    /**
+     * Adds given taint objects to pointer, and propagates them
+     * along the pointer flow graph.
+     *
+     * @return true if the taints of given pointer changed, otherwise false.
+     */
+    boolean addTaints(Pointer pointer, BitSet bits) {
+        return addTaints(null, pointer, bits);
+    }
+
+    /**
+     * Adds given taint objects, which flow from source, to pointer,
+     * and propagates them along the pointer flow graph.
+     *
+     * @return true if the taints of given pointer changed, otherwise false.
+     */
+    private boolean addTaints(Pointer source, Pointer pointer, BitSet bits) {
+        boolean changed = union(source, pointer, bits);
+        if (changed) {
+            workList.add(pointer);
+            if (!propagating) {
+                propagate();
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Propagates the taints of source to target when a new PFG edge
+     * (source -> target) is added.
+     */
+    void onNewPFGEdge(Pointer source, Pointer target) {
+        BitSet bits = taints.get(source);
+        if (bits != null) {
+            BitSet flowed = filter(source, target, bits);
+            if (!flowed.isEmpty()) {
+                addTaints(source, target, flowed);
+            }
+        }
+    }
+
+    /**
+     * Propagates the taints of pointers in work list until fixed point.
+     */
+    private void propagate() {
+        propagating = true;
+        try {
+            Pointer pointer;
+            while ((pointer = workList.poll()) != null) {
+                BitSet bits = taints.get(pointer);
+                // copies the successors, as the consumer of new taints
+                // may add PFG edges, which are handled by onNewPFGEdge()
+                for (Pointer succ : succs.apply(pointer).toArray(new Pointer[0])) {
+                    BitSet flowed = filter(pointer, succ, bits);
+                    if (!flowed.isEmpty() && union(pointer, succ, flowed)) {
+                        workList.add(succ);
+                    }
+                }
+            }
+        } finally {
+            propagating = false;
+        }
+    }
+
+    /**
+     * @return the taints in bits which can flow along PFG edge
+     * (source -> target).
+     */
+    private BitSet filter(Pointer source, Pointer target, BitSet bits) {
+        if (edgeFilter == null) {
+            return bits;
+        }
+        BitSet flowed = edgeFilter.filter(source, target, bits);
+        if (flowed != bits) {
+            filteredTaints += bits.cardinality() - flowed.cardinality();
+        }
+        return flowed;
+    }
+
+    /**
+     * Unions given bits, which flow from source (null if absent),
+     * into the taints of pointer.
+     *
+     * @return true if the taints of pointer changed, otherwise false.
+     */
+    private boolean union(Pointer source, Pointer pointer, BitSet bits) {
+        BitSet old = taints.computeIfAbsent(pointer, p -> new BitSet());
+        if (newTaintsConsumer == null) {
+            int oldCard = old.cardinality();
+            old.or(bits);
+            return old.cardinality() != oldCard;
+        }
+        BitSet diff = (BitSet) bits.clone();
+        diff.andNot(old);
+        if (diff.isEmpty()) {
+            return false;
+        }
+        old.or(diff);
+        newTaintsConsumer.accept(source, pointer, diff);
+        return true;
+    }
+
+    /**
+     * @return the number of pointers which have taints.
+     */
+    int getNumberOfTaintedPointers() {
+        return taints.size();
+    }
+
+    /**
+     * @return the total number of (pointer, taint) pairs in this overlay.
+     */
+    long getNumberOfTaintEntries() {
+        return taints.values()
+                .stream()
+                .mapToLong(BitSet::cardinality)
+                .sum();
+    }
+
+    /**
+     * @return the number of taint entries which are dropped by
+     * the edge filter, i.e., not propagated along PFG edges.
+     */
+    long getNumberOfFilteredTaints() {
+        return filteredTaints;
+    }
+
+    /**
+     * Consumer of the new taints of pointers.
+     */
+    @FunctionalInterface
+    interface NewTaintsConsumer {
+
+        /**
+         * @param source the pointer from which the taints flow,
+         *               null if the taints are added directly.
+         * @param target the pointer which receives the taints.
+         * @param taints ids of the new taints of target.
+         */
+        void accept(Pointer source, Pointer target, BitSet taints);
+    }
+
+    /**
+     * Filter of the taints flowing along PFG edges.
+     */
+    @FunctionalInterface
+    interface EdgeFilter {
+
+        /**
+         * @param source the source of the PFG edge.
+         * @param target the target of the PFG edge.
+         * @param taints ids of the taints flowing along the edge,
+         *               which must not be modified.
+         * @return ids of the taints which can flow along the edge.
+         * If all of them can flow, given bitset itself is returned.
+         */
+        BitSet filter(Pointer source, Pointer target, BitSet taints);
+    }
+}
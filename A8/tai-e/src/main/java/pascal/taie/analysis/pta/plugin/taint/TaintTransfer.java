@@ -22,6 +22,10 @@
 
 package pascal.taie.analysis.pta.plugin.taint;
 
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 
@@ -64,6 +68,19 @@ record TaintTransfer(JMethod method, int from, int to, Type type) {
                 "(" + type + ")";
     }
 
+    /**
+     * @return the variable of given index at callSite, or null if absent.
+     */
+    static Var getVar(Invoke callSite, int index) {
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        return switch (index) {
+            case BASE -> invokeExp instanceof InvokeInstanceExp instExp ?
+                    instExp.getBase() : null;
+            case RESULT -> callSite.getResult();
+            default -> invokeExp.getArg(index);
+        };
+    }
+
     /**
      * Coverts string to index.
      */
@@ -78,7 +95,7 @@ record TaintTransfer(JMethod method, int from, int to, Type type) {
     /**
      * Converts index to string.
      */
-    private static String toString(int index) {
+    static String toString(int index) {
         return switch (index) {
             case BASE -> BASE_STR;
             case RESULT -> RESULT_STR;
@@ -0,0 +1,81 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.Set;
+
+/**
+ * Represents the taint transfer edges, which complement the pointer
+ * flow graph. A transfer edge (from -> to) is induced by a call to
+ * a method with a {@link TaintTransfer}, and its transfer function turns
+ * the taint objects flowing into "from" into the taint objects of
+ * the transferred type for "to".
+ */
+class TaintTransferGraph {
+
+    /**
+     * Represents an outgoing transfer edge.
+     *
+     * @param target the "to" variable of the transfer
+     * @param type   the type of the transferred taint objects
+     * @param pack   the rule pack of the transfer, only the taint objects
+     *               of the rule pack are transferred along the edge.
+     */
+    record Edge(CSVar target, Type type, String pack) {
+    }
+
+    /**
+     * Map from a variable to its outgoing transfer edges.
+     */
+    private final MultiMap<Pointer, Edge> outEdges = Maps.newMultiMap();
+
+    /**
+     * Adds a transfer edge (source -> target).
+     *
+     * @return true if this graph changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addEdge(CSVar source, CSVar target, Type type, String pack) {
+        return outEdges.put(source, new Edge(target, type, pack));
+    }
+
+    /**
+     * @return outgoing transfer edges of given pointer.
+     */
+    Set<Edge> getOutEdgesOf(Pointer pointer) {
+        return outEdges.get(pointer);
+    }
+
+    /**
+     * @return the number of transfer edges.
+     */
+    int getNumberOfEdges() {
+        return outEdges.size();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records the provenance of taint objects for extracting witness paths
+ * of taint flows. For each (pointer, taint object) pair, it records only
+ * the predecessor pointer which introduced the taint object to the pointer
+ * (together with the length of the path from the source), instead of
+ * the provenance of all objects. A taint object made by taint transfer
+ * is linked to the taint object it is transferred from, thus the witness
+ * paths go through transfers back to the source calls. The number of the records is bounded,
+ * and the pairs beyond the bound are not recorded, thus the witness paths
+ * through them are unavailable.
+ */
+class TaintWitness {
+
+    /**
+     * Default maximum number of records.
+     */
+    static final int DEFAULT_LIMIT = 1 << 20;
+
+    /**
+     * Predecessor of a pointer for a taint object.
+     *
+     * @param pred      the predecessor pointer, null for the result variable
+     *                  of source call.
+     * @param predTaint the taint object at the predecessor, which differs
+     *                  from the taint object of this step after a transfer.
+     * @param depth     the number of edges from the source call.
+     */
+    private record Step(Pointer pred, Obj predTaint, int depth) {
+    }
+
+    private final TwoKeyMap<Pointer, Obj, Step> steps = Maps.newTwoKeyMap();
+
+    private final int limit;
+
+    private int records = 0;
+
+    private long dropped = 0;
+
+    /**
+     * @param limit the maximum number of records.
+     */
+    TaintWitness(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Records that taint is generated at pointer, i.e., the result
+     * variable of a source call.
+     */
+    void onSource(Pointer pointer, Obj taint) {
+        record(pointer, taint, null, null, 0);
+    }
+
+    /**
+     * Records that taint flows from source to target.
+     */
+    void onFlow(Pointer source, Pointer target, Obj taint) {
+        onTransfer(source, taint, target, taint);
+    }
+
+    /**
+     * Records that taint at source is transferred to target as
+     * transferredTaint, along a taint transfer edge (source -> target).
+     */
+    void onTransfer(Pointer source, Obj taint,
+                    Pointer target, Obj transferredTaint) {
+        Step step = steps.get(source, taint);
+        if (step != null) {
+            record(target, transferredTaint, source, taint, step.depth() + 1);
+        }
+        // otherwise, the source is not recorded (beyond the limit),
+        // so is the target
+    }
+
+    private void record(Pointer pointer, Obj taint,
+                        Pointer pred, Obj predTaint, int depth) {
+        Step old = steps.get(pointer, taint);
+        if (old == null) {
+            if (records >= limit) {
+                ++dropped;
+                return;
+            }
+            ++records;
+            steps.put(pointer, taint, new Step(pred, predTaint, depth));
+        } else if (depth < old.depth()) {
+            // replacing a step does not increase memory. The depths
+            // strictly decrease along the recorded steps, thus they never
+            // form a cycle.
+            steps.put(pointer, taint, new Step(pred, predTaint, depth));
+        }
+    }
+
+    /**
+     * @return the witness path of taint from its source to given pointer,
+     * i.e., the pointers from the result variable of source call to given
+     * pointer (through the taint transfers, if any), or null if the path
+     * is unavailable.
+     */
+    List<Pointer> getPath(Pointer pointer, Obj taint) {
+        Step step = steps.get(pointer, taint);
+        if (step == null) {
+            return null;
+        }
+        List<Pointer> path = new ArrayList<>(step.depth() + 1);
+        Pointer p = pointer;
+        while (step != null) {
+            path.add(p);
+            if (step.pred() == null) { // reach source
+                Collections.reverse(path);
+                return path;
+            }
+            p = step.pred();
+            step = steps.get(p, step.predTaint());
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of recorded (pointer, taint object) pairs.
+     */
+    int getNumberOfRecords() {
+        return records;
+    }
+
+    /**
+     * @return the number of (pointer, taint object) pairs which
+     * are not recorded due to the limit.
+     */
+    long getNumberOfDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set which cannot be modified. Such sets are shared by
+ * the pointers with equal points-to sets after pointer analysis finishes.
+ * The objects are stored in a plain array sorted by their hash codes,
+ * thus {@link #contains} is a binary search, and the set holds no
+ * per-object entries. Two such sets are equal if they contain the same
+ * objects, regardless of the order in which the objects were added.
+ *
+ * @see PointsToSetCompactor
+ */
+class ImmutablePointsToSet implements PointsToSet {
+
+    private static final Comparator<CSObj> HASH_ORDER =
+            Comparator.comparingInt(Object::hashCode);
+
+    /**
+     * Objects in this set, sorted by {@link #HASH_ORDER}.
+     */
+    private final CSObj[] objs;
+
+    /**
+     * Sum of the hash codes of the objects, which does not depend
+     * on their order.
+     */
+    private final int hash;
+
+    ImmutablePointsToSet(Collection<CSObj> objs) {
+        this.objs = objs.toArray(new CSObj[0]);
+        Arrays.sort(this.objs, HASH_ORDER);
+        int h = 0;
+        for (CSObj obj : this.objs) {
+            h += obj.hashCode();
+        }
+        this.hash = h;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        throw new UnsupportedOperationException(
+                "Cannot modify immutable points-to set");
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        throw new UnsupportedOperationException(
+                "Cannot modify immutable points-to set");
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        int h = obj.hashCode();
+        int i = Arrays.binarySearch(objs, obj, HASH_ORDER);
+        if (i < 0) {
+            return false;
+        }
+        // scans the objects of the same hash code around i
+        for (int j = i; j >= 0 && objs[j].hashCode() == h; --j) {
+            if (objs[j].equals(obj)) {
+                return true;
+            }
+        }
+        for (int j = i + 1; j < objs.length && objs[j].hashCode() == h; ++j) {
+            if (objs[j].equals(obj)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return objs.length == 0;
+    }
+
+    @Override
+    public int size() {
+        return objs.length;
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<CSObj> iterator() {
+                return Arrays.asList(objs).iterator();
+            }
+
+            @Override
+            public int size() {
+                return objs.length;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj &&
+                        ImmutablePointsToSet.this.contains(obj);
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return Arrays.stream(objs);
+    }
+
+    @Override
+    public Iterator<CSObj> iterator() {
+        return Arrays.asList(objs).iterator();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutablePointsToSet that) ||
+                hash != that.hash || objs.length != that.objs.length) {
+            return false;
+        }
+        for (CSObj obj : objs) {
+            if (!that.contains(obj)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(objs);
+    }
+}
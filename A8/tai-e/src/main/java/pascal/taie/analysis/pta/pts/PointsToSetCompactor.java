@@ -0,0 +1,113 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Compacts the points-to sets in pointer analysis result by hash-consing,
+ * i.e., all pointers whose points-to sets contain the same objects share
+ * the same {@link ImmutablePointsToSet}, regardless of the order in which
+ * the objects were added. This reduces the heap held by long-lived
+ * consumers of pointer analysis result. Note that compaction may change
+ * the iteration order of points-to sets, which is not specified.
+ * <p>
+ * The compaction must be applied after pointer analysis finishes,
+ * as the compacted points-to sets cannot be modified.
+ */
+public final class PointsToSetCompactor {
+
+    private static final Logger logger = LogManager.getLogger(PointsToSetCompactor.class);
+
+    /**
+     * Map from each immutable points-to set to the shared one
+     * that contains the same objects.
+     */
+    private final Map<ImmutablePointsToSet, ImmutablePointsToSet> canonicals =
+            Maps.newMap();
+
+    private long pointers = 0;
+
+    private long entries = 0;
+
+    private PointsToSetCompactor() {
+    }
+
+    /**
+     * Replaces the points-to sets of all pointers in given result
+     * by shared immutable points-to sets.
+     */
+    public static void compact(PointerAnalysisResult result) {
+        long memBefore = usedMemory();
+        PointsToSetCompactor compactor = new PointsToSetCompactor();
+        compactor.compact(result.getCSVars());
+        compactor.compact(result.getStaticFields());
+        compactor.compact(result.getInstanceFields());
+        compactor.compact(result.getArrayIndexes());
+        int unique = compactor.canonicals.size();
+        long uniqueEntries = compactor.canonicals.keySet()
+                .stream()
+                .mapToLong(PointsToSet::size)
+                .sum();
+        long pointers = compactor.pointers;
+        long entries = compactor.entries;
+        compactor = null; // release the canonical map before measuring memory
+        long memAfter = usedMemory();
+        logger.info("Compacted {} points-to sets into {} shared set(s)," +
+                        " {} -> {} entries, used heap {} MB -> {} MB",
+                pointers, unique, entries, uniqueEntries,
+                memBefore >> 20, memAfter >> 20);
+    }
+
+    private void compact(Collection<? extends Pointer> pointers) {
+        for (Pointer pointer : pointers) {
+            PointsToSet pts = pointer.getPointsToSet();
+            if (pts instanceof ImmutablePointsToSet immutable) {
+                // already compacted
+                canonicals.putIfAbsent(immutable, immutable);
+                continue;
+            }
+            ++this.pointers;
+            entries += pts.size();
+            ImmutablePointsToSet compacted = new ImmutablePointsToSet(pts.getObjects());
+            ImmutablePointsToSet canonical = canonicals.putIfAbsent(compacted, compacted);
+            pointer.setPointsToSet(canonical != null ? canonical : compacted);
+        }
+    }
+
+    /**
+     * @return the approximate heap memory in use.
+     */
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.util.collection.Streams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PointerAnalysisSnapshotTest {
+
+    @Test
+    public void testWriteAndLoad() throws IOException {
+        Tests.testCSPTA("taint", "TaintInList", "cs:2-obj;" +
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Path path = Files.createTempFile("pta", ".snapshot");
+        try {
+            PointerAnalysisSnapshot.write(result, path);
+            PointerAnalysisSnapshot snapshot = PointerAnalysisSnapshot.load(path);
+            assertEquals(result.getCSVars().size() + result.getStaticFields().size() +
+                            result.getInstanceFields().size() + result.getArrayIndexes().size(),
+                    snapshot.getNumberOfPointers());
+            assertEquals(result.getCSCallGraph().edges().count(),
+                    snapshot.getNumberOfCallEdges());
+            Stream.<Collection<? extends Pointer>>of(
+                            result.getCSVars(), result.getStaticFields(),
+                            result.getInstanceFields(), result.getArrayIndexes())
+                    .flatMap(Collection::stream)
+                    .forEach(pointer -> assertEquals(
+                            Streams.toString(pointer.getPointsToSet().objects()),
+                            Streams.toString(snapshot.getPointsToSet(
+                                    pointer.toString()).stream())));
+            // the ids of each points-to set are decoded in ascending order
+            for (int i = 0; i < snapshot.getNumberOfPointers(); ++i) {
+                int[] ids = snapshot.getPointsToSet(i);
+                for (int j = 1; j < ids.length; ++j) {
+                    assertTrue(ids[j - 1] < ids[j]);
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
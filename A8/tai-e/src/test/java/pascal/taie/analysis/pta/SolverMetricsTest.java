@@ -0,0 +1,79 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Test;
+import pascal.taie.config.AnalysisOptions;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SolverMetricsTest {
+
+    @Test
+    public void testEnabledMetrics() {
+        SolverMetrics metrics = new SolverMetrics("test",
+                new AnalysisOptions(Map.of("metrics", true, "metrics-interval", 0)));
+        assertTrue(metrics.isEnabled());
+        long[] length = { 3 };
+        metrics.setGauge(SolverMetrics.Gauge.WORK_LIST_LENGTH, () -> length[0]);
+        metrics.onEntryProcessed(3);
+        metrics.onEntryProcessed(7);
+        metrics.onEntryProcessed(5);
+        metrics.onCallResolution();
+        metrics.onCallResolution();
+        length[0] = 0;
+        metrics.onFinish();
+        assertEquals(3, metrics.getProcessedEntries());
+        assertEquals(2, metrics.getCallResolutions());
+        assertEquals(7, metrics.getLargestPointsToSet());
+    }
+
+    @Test
+    public void testPeriodicReport() {
+        // with interval 0, a report is made at every time check,
+        // the reports must not disturb the counters
+        SolverMetrics metrics = new SolverMetrics("test",
+                new AnalysisOptions(Map.of("metrics", true, "metrics-interval", 0)));
+        for (int i = 1; i <= 5000; ++i) {
+            metrics.onEntryProcessed(i % 100);
+        }
+        assertEquals(5000, metrics.getProcessedEntries());
+        assertEquals(99, metrics.getLargestPointsToSet());
+    }
+
+    @Test
+    public void testDisabledMetrics() {
+        SolverMetrics metrics = SolverMetrics.disabled("test");
+        assertFalse(metrics.isEnabled());
+        metrics.onEntryProcessed(10);
+        metrics.onCallResolution();
+        metrics.onFinish();
+        assertEquals(0, metrics.getProcessedEntries());
+        assertEquals(0, metrics.getCallResolutions());
+        assertEquals(0, metrics.getLargestPointsToSet());
+    }
+}
@@ -70,4 +70,50 @@ public class TaintTest {
         Tests.testCSPTA(DIR, "TaintInList",
                 "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
     }
+
+    @Test
+    public void testTransferChain() {
+        Tests.testCSPTA(DIR, "TransferChain",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testSanitizedTaint() {
+        // the same program as InterTaintTransfer, except that the first
+        // argument of the callee is sanitized, thus only one flow remains
+        Tests.testCSPTA(DIR, "SanitizedTaint",
+                "cs:2-call;taint-config:src/test/resources/pta/taint/taint-config-sanitizer.yml");
+    }
+
+    @Test
+    public void testTaintOnlyReceiver() {
+        // the source returns no object but the taint,
+        // which is the receiver object of the call to concat()
+        Tests.testCSPTA(DIR, "TaintOnlyReceiver",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    // the taint flows found by taint overlay must be identical to the ones
+    // found in points-to sets, i.e., the ones in the expected files
+
+    @Test
+    public void testInterTaintTransferOverlay() {
+        Tests.testCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call;taint-config:src/test/resources/pta/taint/taint-config.yml;" +
+                        "taint-overlay:true");
+    }
+
+    @Test
+    public void testTaintInListOverlay() {
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml;" +
+                        "taint-overlay:true");
+    }
+
+    @Test
+    public void testTaintOnlyReceiverOverlay() {
+        Tests.testCSPTA(DIR, "TaintOnlyReceiver",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml;" +
+                        "taint-overlay:true");
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HashedPointsToSetComparatorTest {
+
+    @Test
+    public void testCorruptedLine() throws IOException {
+        Tests.testCSPTA("taint", "TaintInList", "cs:2-obj;" +
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Path file = Files.createTempFile("pta", ".txt");
+        try {
+            ResultProcessorTest.process(result,
+                    "action", "dump", "file", file.toString());
+            // the hashes of an intact dump match
+            ResultProcessorTest.process(result, "action", "compare",
+                    "file", file.toString(), "compare-mode", "hash");
+            // drops the first object of the first set with several objects
+            List<String> lines = new ArrayList<>(Files.readAllLines(file));
+            String corrupted = null;
+            for (int i = 0; i < lines.size(); ++i) {
+                String line = lines.get(i);
+                int sep = line.indexOf(" -> [");
+                int comma = line.indexOf(", ", sep);
+                if (sep > 0 && comma > 0 && !line.startsWith("TaintFlow{")) {
+                    corrupted = line.substring(0, sep);
+                    lines.set(i, line.substring(0, sep + 5) +
+                            line.substring(comma + 2));
+                    break;
+                }
+            }
+            assertTrue("no set has several objects", corrupted != null);
+            Files.write(file, lines);
+            try {
+                ResultProcessorTest.process(result, "action", "compare",
+                        "file", file.toString(), "compare-mode", "hash");
+                fail("the corrupted line is not reported");
+            } catch (AnalysisException e) {
+                String[] mismatches = e.getMessage().split("\n");
+                // the header and exactly one mismatch
+                assertEquals(2, mismatches.length);
+                assertTrue(mismatches[1].startsWith(corrupted + ", expected: "));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.config.AnalysisOptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+public class ResultProcessorTest {
+
+    private static final String TAINT_CONFIG =
+            "src/test/resources/pta/taint/taint-config.yml";
+
+    @Test
+    public void testDumpAndCompare() throws IOException {
+        Tests.testCSPTA("taint", "TaintInList", "cs:2-obj;taint-config:" + TAINT_CONFIG);
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        // the round trip is meaningful only if some sets have several objects
+        assertTrue(result.getCSVars().stream()
+                .anyMatch(v -> v.getPointsToSet().size() > 1));
+        Path file = Files.createTempFile("pta", ".txt");
+        try {
+            // dumps of ResultProcessor, and of the streaming text dumper
+            for (String format : new String[]{ null, "text" }) {
+                process(result, "action", "dump", "file", file.toString(),
+                        "dump-format", format);
+                // taint flows (by default), then points-to sets
+                for (String mode : new String[]{ null, "text", "hash" }) {
+                    process(result, "action", "compare", "file", file.toString(),
+                            "compare-mode", mode);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testBinaryDumpAndCompare() throws IOException {
+        Tests.testCSPTA("taint", "TaintInList", "cs:2-obj;taint-config:" + TAINT_CONFIG);
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Path file = Files.createTempFile("pta", ".snapshot");
+        try {
+            process(result, "action", "dump", "file", file.toString(),
+                    "dump-format", "binary");
+            process(result, "action", "compare", "file", file.toString(),
+                    "compare-mode", "snapshot");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Processes result with the taint config and given options,
+     * i.e., pairs of keys and values, where null values are skipped.
+     */
+    static void process(PointerAnalysisResult result, String... options) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("taint-config", TAINT_CONFIG);
+        for (int i = 0; i < options.length; i += 2) {
+            if (options[i + 1] != null) {
+                map.put(options[i], options[i + 1]);
+            }
+        }
+        ResultProcessor.process(new AnalysisOptions(map), result);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.cs.CSPTA;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the results of taint analysis beyond the taint flows
+ * in the expected files, e.g., witness paths.
+ */
+public class TaintAnalysissTest {
+
+    private static final String DIR = "taint";
+
+    private static final String CONFIG =
+            "taint-config:src/test/resources/pta/taint/taint-config.yml";
+
+    @Test
+    public void testWitnessThroughTransfer() {
+        Tests.testCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call;" + CONFIG + ";taint-witness:true");
+        Set<TaintFlow> taintFlows = getTaintFlows();
+        Map<TaintFlow, List<Pointer>> paths =
+                getResult().getResult(TaintWitness.class.getName());
+        assertEquals(taintFlows, paths.keySet());
+        paths.forEach((taintFlow, path) -> {
+            // the taints reach the sinks through String.concat(),
+            // the paths must go back through the transfers to source calls
+            assertEquals(taintFlow.sourceCall().getResult(),
+                    ((CSVar) path.get(0)).getVar());
+            assertEquals(taintFlow.sinkCall().getInvokeExp().getArg(taintFlow.index()),
+                    ((CSVar) path.get(path.size() - 1)).getVar());
+            assertTrue(path.stream().anyMatch(p -> p instanceof CSVar v &&
+                    v.getVar().getMethod().getName().equals("transfer")));
+        });
+    }
+
+    @Test
+    public void testRulePacks() {
+        // both packs take source() as source, but each has only
+        // one of the sink methods
+        Tests.testCSPTA(DIR, "SimpleTaint", "cs:ci;taint-config:" +
+                "src/test/resources/pta/taint/taint-pack-sink1.yml," +
+                "src/test/resources/pta/taint/taint-pack-sink2.yml");
+        Map<String, Set<TaintFlow>> flowsByPack =
+                getResult().getResult(RulePack.class.getName());
+        assertEquals(Set.of("taint-pack-sink1", "taint-pack-sink2"),
+                flowsByPack.keySet());
+        Set<TaintFlow> flows1 = flowsByPack.get("taint-pack-sink1");
+        Set<TaintFlow> flows2 = flowsByPack.get("taint-pack-sink2");
+        assertEquals(2, flows1.size());
+        assertEquals(2, flows2.size());
+        flows1.forEach(flow -> assertEquals(1,
+                flow.sinkCall().getInvokeExp().getArgCount()));
+        flows2.forEach(flow -> assertEquals(2,
+                flow.sinkCall().getInvokeExp().getArgCount()));
+        // the merged flows are the union of the flows of the packs
+        Set<TaintFlow> union = new HashSet<>(flows1);
+        union.addAll(flows2);
+        assertEquals(union, getTaintFlows());
+    }
+
+    @Test
+    public void testMergeBySourceCall() {
+        Tests.testCSPTA(DIR, "MergedSources", "cs:ci;" + CONFIG);
+        assertEquals(2, countTaints("s1"));
+    }
+
+    @Test
+    public void testMergeBySourceMethod() {
+        // the two calls to source() share a taint object, whose flow
+        // is reported for both calls, as in testMergeBySourceCall()
+        Tests.testCSPTA(DIR, "MergedSources",
+                "cs:ci;" + CONFIG + ";taint-merge:source-method");
+        assertEquals(1, countTaints("s1"));
+    }
+
+    /**
+     * @return the number of taint objects pointed to by given variable
+     * of main method.
+     */
+    private static long countTaints(String varName) {
+        return getResult().getCSVars()
+                .stream()
+                .filter(v -> v.getVar().getName().equals(varName) &&
+                        v.getVar().getMethod().getName().equals("main"))
+                .flatMap(v -> v.getPointsToSet().objects())
+                .map(CSObj::getObject)
+                .filter(o -> o instanceof MockObj m &&
+                        m.getDescription().equals("TaintObj"))
+                .distinct()
+                .count();
+    }
+
+    private static PointerAnalysisResult getResult() {
+        return World.get().getResult(CSPTA.ID);
+    }
+
+    private static Set<TaintFlow> getTaintFlows() {
+        return getResult().getResult(TaintAnalysiss.class.getName());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.util.collection.Streams;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PointsToSetCompactorTest {
+
+    @Test
+    public void testCompactedDumpIsIdentical() {
+        Tests.testCSPTA("taint", "TaintInList", "cs:2-obj;" +
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        List<String> before = dump(result);
+        PointsToSetCompactor.compact(result);
+        assertTrue(pointers(result).allMatch(p ->
+                p.getPointsToSet() instanceof ImmutablePointsToSet));
+        assertEquals(before, dump(result));
+        // the pointers with equal points-to sets share a single set
+        Map<String, Set<PointsToSet>> shared = new HashMap<>();
+        pointers(result).forEach(p -> shared.computeIfAbsent(
+                        Streams.toString(p.getPointsToSet().objects()),
+                        k -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                .add(p.getPointsToSet()));
+        shared.values().forEach(sets -> assertEquals(1, sets.size()));
+        assertTrue(shared.size() < pointers(result).count());
+    }
+
+    private static Stream<Pointer> pointers(PointerAnalysisResult result) {
+        return Stream.<Collection<? extends Pointer>>of(
+                        result.getCSVars(), result.getStaticFields(),
+                        result.getInstanceFields(), result.getArrayIndexes())
+                .flatMap(pointers -> pointers.stream().map(Pointer.class::cast));
+    }
+
+    /**
+     * @return the lines of points-to sets in the format of
+     * the dumps of ResultProcessor.
+     */
+    private static List<String> dump(PointerAnalysisResult result) {
+        return pointers(result)
+                .sorted(Comparator.comparing(Pointer::toString))
+                .map(p -> p + " -> " + Streams.toString(p.getPointsToSet().objects()))
+                .toList();
+    }
+}
@@ -0,0 +1,12 @@
+class MergedSources {
+
+    public static void main(String[] args) {
+        String s1 = identity(SourceSink.source());
+        String s2 = identity(SourceSink.source());
+        SourceSink.sink(s1); // 2 taints, as identity() is context-insensitive
+    }
+
+    static String identity(String s) {
+        return s;
+    }
+}
@@ -0,0 +1,16 @@
+class SanitizedTaint {
+
+    public static void main(String[] args) {
+        String t1 = SourceSink.source();
+        String t2 = SourceSink.source();
+        String t3 = SourceSink.source();
+        String s = new String();
+        SourceSink.sink(sanitize(t1, s)); // sanitized
+        SourceSink.sink(sanitize(t2, s)); // sanitized
+        SourceSink.sink(sanitize(s, t3)); // taint
+    }
+
+    static String sanitize(String s1, String s2) {
+        return s1.concat(s2);
+    }
+}
@@ -4,6 +4,10 @@ class SourceSink {
         return new String();
     }
 
+    static String taintOnlySource() {
+        return null;
+    }
+
     static void sink(String s) {
     }
 
@@ -0,0 +1,9 @@
+class TaintOnlyReceiver {
+
+    public static void main(String[] args) {
+        String taint = SourceSink.taintOnlySource();
+        String s1 = new String();
+        String s2 = taint.concat(s1);
+        SourceSink.sink(s2); // taint
+    }
+}
@@ -0,0 +1,9 @@
+class TransferChain {
+
+    public static void main(String[] args) {
+        String taint = SourceSink.source();
+        char[] chars = taint.toCharArray();
+        String s = new String(chars);
+        SourceSink.sink(s); // taint
+    }
+}